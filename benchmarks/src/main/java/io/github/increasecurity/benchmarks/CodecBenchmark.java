@@ -0,0 +1,95 @@
+package io.github.increasecurity.benchmarks;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import io.github.increasecurity.content.ContentEncoder;
+import io.github.increasecurity.content.GzipCodec;
+import io.github.increasecurity.content.SpecCodec;
+import io.github.increasecurity.content.ZstdCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes a yaml spec with every codec. The encoded and input bytes are reported as secondary results,
+ * their quotient is the ratio of the codec. The zstd dictionary is trained on smaller specs of the corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final int DICTIONARY_SIZE = 16 * 1024;
+
+    @Param({"gzip-1", "gzip-6", "gzip-9", "zstd-1", "zstd-3", "zstd-9", "zstd-dict-3"})
+    public String codec;
+
+    @Param({"10KB", "100KB", "1MB"})
+    public String size;
+
+    private byte[] bytes;
+    private ContentEncoder encoder;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Sizes {
+        public long inputBytes;
+        public long encodedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("inspectoor-bench");
+        try {
+            bytes = Files.readAllBytes(SpecCorpus.write(dir, SpecCorpus.parseSize(size), false, false));
+            encoder = new ContentEncoder(codec(dir), ContentEncoder.DEFAULT_BUFFER_SIZE, Integer.MAX_VALUE, null);
+        } finally {
+            BenchmarkFiles.delete(dir);
+        }
+    }
+
+    private SpecCodec codec(Path dir) throws IOException {
+        int level = Integer.parseInt(codec.substring(codec.lastIndexOf('-') + 1));
+        if (codec.startsWith("gzip")) {
+            return new GzipCodec(level);
+        }
+        if (codec.startsWith("zstd-dict")) {
+            return new ZstdCodec(level, trainDictionary(dir.resolve("samples")));
+        }
+        return new ZstdCodec(level);
+    }
+
+    private static byte[] trainDictionary(Path dir) throws IOException {
+        ZstdDictTrainer trainer = new ZstdDictTrainer(16 * 1024 * 1024, DICTIONARY_SIZE);
+        for (int i = 0; i < 200; i++) {
+            Path sample = SpecCorpus.write(dir.resolve(String.valueOf(i)), 2048 + i * 256, false, false);
+            trainer.addSample(Files.readAllBytes(sample));
+        }
+        return trainer.trainSamples();
+    }
+
+    @Benchmark
+    public String encode(Sizes sizes) throws IOException {
+        String encoded = encoder.encodeToString(out -> out.write(bytes));
+        sizes.inputBytes += bytes.length;
+        sizes.encodedBytes += encoded.length();
+        return encoded;
+    }
+}
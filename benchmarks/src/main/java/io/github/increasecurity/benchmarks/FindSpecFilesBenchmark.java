@@ -0,0 +1,66 @@
+package io.github.increasecurity.benchmarks;
+
+import io.github.increasecurity.InspectoorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a source tree in which every tenth json or yaml file is a spec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindSpecFilesBenchmark {
+
+    @Param({"100", "1000"})
+    public int files;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("inspectoor-bench");
+        for (int i = 0; i < files; i++) {
+            Path package_ = dir.resolve("src/main/resources/package" + i % 20);
+            if (i % 10 == 0) {
+                SpecCorpus.write(package_.resolve("api" + i), 1024, i % 20 == 0, false);
+            } else {
+                Files.createDirectories(package_);
+                Files.writeString(package_.resolve("config" + i + (i % 2 == 0 ? ".json" : ".yaml")),
+                        i % 2 == 0 ? "{\"name\": \"config" + i + "\", \"enabled\": true}" : "name: config" + i + "\nenabled: true\n");
+            }
+        }
+        Files.createDirectories(dir.resolve("node_modules/library"));
+        Files.writeString(dir.resolve("node_modules/library/package.json"), "{\"name\": \"library\"}");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(dir);
+    }
+
+    @Benchmark
+    public List<String> findOpenApiFiles() {
+        return InspectoorUtil.findOpenApiFiles(dir.toString());
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.increasecurity.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Generates synthetic openapi 3.0 specs of a given size. With external refs the schemas are moved
+ * into a components file next to the spec, otherwise they are local.
+ */
+public class SpecCorpus {
+
+    public static final String COMPONENTS_FILE = "components.yaml";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final int SCHEMAS = 50;
+
+    private SpecCorpus() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param size 1KB, 100KB, 1MB or 20MB, any number with a KB or MB suffix
+     * @return the size in bytes
+     */
+    public static int parseSize(String size) {
+        String value = size.trim().toUpperCase();
+        if (value.endsWith("MB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024 * 1024;
+        }
+        if (value.endsWith("KB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * @param dir          the spec and its components file are written here
+     * @param bytes        approximate size of the spec
+     * @param json         json or yaml
+     * @param externalRefs schemas are referenced in the components file
+     * @return the spec file
+     */
+    public static Path write(Path dir, int bytes, boolean json, boolean externalRefs) throws IOException {
+        Files.createDirectories(dir);
+        String refPrefix = externalRefs ? "./" + COMPONENTS_FILE + "#/components/schemas/" : "#/components/schemas/";
+        ObjectMapper mapper = json ? JSON : YAML;
+
+        ObjectNode spec = NODES.objectNode();
+        spec.put("openapi", "3.0.3");
+        spec.putObject("info").put("title", "Benchmark API").put("version", "1.0.0");
+        spec.putArray("servers").addObject().put("url", "https://api.example.com/v1");
+        ObjectNode paths = spec.putObject("paths");
+        ObjectNode components = NODES.objectNode();
+        ObjectNode schemas = components.putObject("schemas");
+        for (int i = 0; i < SCHEMAS; i++) {
+            schemas.set("Model" + i, schema(i));
+        }
+        if (externalRefs) {
+            ObjectNode componentsFile = NODES.objectNode();
+            componentsFile.set("components", components);
+            YAML.writeValue(dir.resolve(COMPONENTS_FILE).toFile(), componentsFile);
+        } else {
+            spec.set("components", components);
+        }
+
+        int base = mapper.writeValueAsBytes(spec).length;
+        int perPath = mapper.writeValueAsBytes(pathItem(0, refPrefix)).length + 16;
+        int count = Math.max(1, (bytes - base) / perPath);
+        for (int i = 0; i < count; i++) {
+            paths.set("/resources" + i + "/{id}", pathItem(i, refPrefix));
+        }
+
+        Path file = dir.resolve(json ? "openapi.json" : "openapi.yaml");
+        mapper.writeValue(file.toFile(), spec);
+        return file;
+    }
+
+    private static ObjectNode schema(int index) {
+        ObjectNode schema = NODES.objectNode().put("type", "object");
+        schema.putArray("required").add("id");
+        ObjectNode properties = schema.putObject("properties");
+        properties.putObject("id").put("type", "string").put("format", "uuid");
+        properties.putObject("name").put("type", "string").put("maxLength", 255);
+        properties.putObject("count").put("type", "integer").put("format", "int32");
+        properties.putObject("createdAt").put("type", "string").put("format", "date-time");
+        properties.putObject("description").put("type", "string").put("description", "Field of model " + index);
+        return schema;
+    }
+
+    private static ObjectNode pathItem(int index, String refPrefix) {
+        ObjectNode pathItem = NODES.objectNode();
+        ObjectNode get = pathItem.putObject("get");
+        get.put("operationId", "getResource" + index);
+        get.put("summary", "Returns resource " + index);
+        get.putArray("tags").add("resources" + index % 10);
+        get.putArray("parameters").addObject()
+                .put("name", "id").put("in", "path").put("required", true)
+                .putObject("schema").put("type", "string");
+        ObjectNode responses = get.putObject("responses");
+        responses.putObject("200").put("description", "OK")
+                .putObject("content").putObject("application/json")
+                .putObject("schema").put("$ref", refPrefix + "Model" + index % SCHEMAS);
+        responses.putObject("404").put("description", "Not found");
+        return pathItem;
+    }
+}
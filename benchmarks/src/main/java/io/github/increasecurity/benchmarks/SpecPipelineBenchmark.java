@@ -0,0 +1,90 @@
+package io.github.increasecurity.benchmarks;
+
+import io.github.increasecurity.HttpClient;
+import io.github.increasecurity.InspectoorUtil;
+import io.github.increasecurity.content.ContentEncoder;
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.model.Spec;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import io.github.increasecurity.openapi.RemoteSpecFetcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per spec steps of the pipeline on synthetic specs of 1 KB up to 20 MB.
+ * Run with -prof gc for the allocation rate. The processor does not deduplicate, otherwise every
+ * invocation after the first would only hash the bytes and copy the first result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecPipelineBenchmark {
+
+    @Param({"1KB", "100KB", "1MB", "20MB"})
+    public String size;
+
+    @Param({"json", "yaml"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean externalRefs;
+
+    private Path dir;
+    private String specFile;
+    private byte[] bytes;
+    private OpenApiProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("inspectoor-bench");
+        specFile = SpecCorpus.write(dir, SpecCorpus.parseSize(size), "json".equals(format), externalRefs).toString();
+        bytes = Files.readAllBytes(Path.of(specFile));
+        processor = new OpenApiProcessor(null, null, new RemoteSpecFetcher(HttpClient.getClient(), null, false),
+                new Metrics(), new ContentEncoder(), false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        processor.close();
+        BenchmarkFiles.delete(dir);
+    }
+
+    @Benchmark
+    public Spec readSpecFile() {
+        return processor.readSpecFile(specFile);
+    }
+
+    @Benchmark
+    public boolean containsExternalRefs() {
+        return processor.containsExternalRefs(bytes);
+    }
+
+    @Benchmark
+    public String loadResolvedOpenApiAsYaml() {
+        return processor.loadResolvedOpenApiAsYaml(specFile);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return InspectoorUtil.compress(bytes);
+    }
+}
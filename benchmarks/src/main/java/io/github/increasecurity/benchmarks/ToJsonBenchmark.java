@@ -0,0 +1,70 @@
+package io.github.increasecurity.benchmarks;
+
+import io.github.increasecurity.InspectoorUtil;
+import io.github.increasecurity.model.Project;
+import io.github.increasecurity.model.Spec;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a project with a number of processed 100 KB specs, as sent to the backend
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToJsonBenchmark {
+
+    @Param({"10", "100"})
+    public int specs;
+
+    private Project project;
+    private OpenApiProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("inspectoor-bench");
+        try {
+            processor = new OpenApiProcessor();
+            Spec spec = processor.readSpecFile(SpecCorpus.write(dir, 100 * 1024, false, false).toString());
+            project = new Project();
+            project.setName("benchmark");
+            project.setSystem("benchmarkSystem");
+            project.setVersion("1.0.0");
+            for (int i = 0; i < specs; i++) {
+                project.getSpecs().add(spec);
+            }
+        } finally {
+            BenchmarkFiles.delete(dir);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        processor.close();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return InspectoorUtil.toJson(project);
+    }
+}
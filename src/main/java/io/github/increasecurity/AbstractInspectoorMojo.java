@@ -0,0 +1,59 @@
+package io.github.increasecurity;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.util.stream.Stream;
+
+/**
+ * The backend and http parameters shared by all goals which upload to the backend
+ */
+public abstract class AbstractInspectoorMojo extends AbstractMojo {
+
+    @Parameter(property = "url")
+    String url;
+    @Parameter(property = "apikey")
+    String apikey;
+    @Parameter(property = "inspectoor.gzip", defaultValue = "false")
+    boolean gzip;
+    @Parameter(property = "inspectoor.failOnUploadError", defaultValue = "false")
+    boolean failOnUploadError;
+    @Parameter(property = "inspectoor.http.connectTimeout", defaultValue = "10")
+    private long connectTimeout;
+    @Parameter(property = "inspectoor.http.readTimeout", defaultValue = "60")
+    private long readTimeout;
+    @Parameter(property = "inspectoor.http.writeTimeout", defaultValue = "60")
+    private long writeTimeout;
+    @Parameter(property = "inspectoor.http.maxIdleConnections", defaultValue = "5")
+    private int maxIdleConnections;
+    @Parameter(property = "inspectoor.http.http2", defaultValue = "true")
+    private boolean http2;
+    @Parameter(property = "inspectoor.http.proxy")
+    private String proxy;
+    @Parameter(property = "inspectoor.http.maxRetries", defaultValue = "3")
+    private int maxRetries;
+
+    protected void configureHttpClient() {
+        HttpSettings settings = new HttpSettings();
+        settings.setConnectTimeoutSeconds(connectTimeout);
+        settings.setReadTimeoutSeconds(readTimeout);
+        settings.setWriteTimeoutSeconds(writeTimeout);
+        settings.setMaxIdleConnections(maxIdleConnections);
+        settings.setHttp2(http2);
+        settings.setProxy(proxy);
+        settings.setMaxRetries(maxRetries);
+        HttpClient.configure(settings);
+    }
+
+    protected void checkUploads(UploadOutcome... outcomes) throws MojoExecutionException {
+        long failed = Stream.of(outcomes).filter(outcome -> outcome == UploadOutcome.FAILED).count();
+        if (failed == 0) {
+            return;
+        }
+        getLog().error(failed + " upload(s) failed");
+        if (failOnUploadError) {
+            throw new MojoExecutionException(failed + " upload(s) to " + this.url + " failed.");
+        }
+    }
+}
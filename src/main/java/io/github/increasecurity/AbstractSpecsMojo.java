@@ -0,0 +1,183 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.cache.DocumentCache;
+import io.github.increasecurity.cache.SpecCache;
+import io.github.increasecurity.content.ContentEncoder;
+import io.github.increasecurity.content.SpecCodec;
+import io.github.increasecurity.content.SpecCodecs;
+import io.github.increasecurity.locator.SpecLocator;
+import io.github.increasecurity.locator.SpecLocatorConfig;
+import io.github.increasecurity.locator.SpecLocators;
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import io.github.increasecurity.openapi.RemoteSpecFetcher;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+/**
+ * The spec discovery and processing parameters shared by all goals which process specs
+ */
+public abstract class AbstractSpecsMojo extends AbstractInspectoorMojo {
+
+    @Parameter(property = "inspectoor.threads")
+    private int threads = Runtime.getRuntime().availableProcessors();
+    @Parameter
+    private List<SpecLocatorConfig> specLocators;
+    @Parameter(property = "inspectoor.virtualThreads", defaultValue = "false")
+    boolean virtualThreads;
+    @Parameter(property = "inspectoor.includes")
+    private List<String> includes;
+    @Parameter(property = "inspectoor.excludes")
+    private List<String> excludes;
+    @Parameter(property = "inspectoor.maxSpecFileSize")
+    private long maxSpecFileSize = SpecFileWalker.DEFAULT_MAX_FILE_SIZE;
+    @Parameter(property = "inspectoor.sniffSize")
+    private int sniffSize = SpecFileWalker.DEFAULT_SNIFF_SIZE;
+    @Parameter(property = "inspectoor.cache", defaultValue = "true")
+    private boolean cache;
+    @Parameter(property = "inspectoor.cacheDirectory", defaultValue = "${project.build.directory}/inspectoor-cache")
+    private File cacheDirectory;
+    @Parameter(property = "inspectoor.cacheMaxSize")
+    private long cacheMaxSize = SpecCache.DEFAULT_MAX_SIZE;
+    @Parameter(property = "inspectoor.refCacheMaxSize")
+    private long refCacheMaxSize = DocumentCache.DEFAULT_MAX_SIZE;
+    @Parameter(property = "inspectoor.remoteSpecCacheDirectory", defaultValue = "${user.home}/.m2/inspectoor/remote-specs")
+    private File remoteSpecCacheDirectory;
+    @Parameter(property = "inspectoor.codec", defaultValue = "gzip")
+    private String codec;
+    @Parameter(property = "inspectoor.compressionDictionary")
+    private File compressionDictionary;
+    @Parameter(property = "inspectoor.compressionLevel")
+    private int compressionLevel = ContentEncoder.DEFAULT_LEVEL;
+    @Parameter(property = "inspectoor.encodeBufferSize")
+    private int encodeBufferSize = ContentEncoder.DEFAULT_BUFFER_SIZE;
+    @Parameter(property = "inspectoor.spillThreshold")
+    private int spillThreshold = ContentEncoder.DEFAULT_SPILL_THRESHOLD;
+    @Parameter(property = "inspectoor.spoolDirectory", defaultValue = "${project.build.directory}/inspectoor-content")
+    private File spoolDirectory;
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Parameter(defaultValue = "${session}")
+    MavenSession mavenSession;
+
+    private SpecCache specCache;
+    private DocumentCache documentCache;
+    private OpenApiProcessor processor;
+    private String specsVersion;
+    private Path runSpoolDirectory;
+
+    /**
+     * Opens the spec cache and creates the processing pipeline, {@link #closeSpecs()} releases it
+     * @param metrics
+     * @return the specs finder of this execution
+     */
+    protected SpecsFinder openSpecs(Metrics metrics) throws MojoExecutionException {
+        SpecCodec specCodec = createCodec();
+        // content compressed by another codec or level is not reused
+        specsVersion = pluginVersion + "+" + specCodec.getName() + "@" + specCodec.getLevel();
+        specCache = cache ? SpecCache.open(cacheDirectory.toPath(), specsVersion, cacheMaxSize) : null;
+        // without a document cache the specs are read by the stock parser
+        documentCache = refCacheMaxSize > 0 ? new DocumentCache(refCacheMaxSize) : null;
+        boolean offline = mavenSession != null && mavenSession.isOffline();
+        RemoteSpecFetcher remoteFetcher = new RemoteSpecFetcher(HttpClient.getClient(), remoteSpecCacheDirectory.toPath(), offline);
+        processor = new OpenApiProcessor(specCache, documentCache, remoteFetcher, metrics,
+                new ContentEncoder(specCodec, encodeBufferSize, spillThreshold, createRunSpoolDirectory()));
+        return new SpecsFinder(new SpecFileWalker(includes, excludes, maxSpecFileSize, sniffSize),
+                processor, metrics, createLocators());
+    }
+
+    /**
+     * @return plugin version, codec and level of the processed specs, set by {@link #openSpecs(Metrics)}
+     */
+    protected String getSpecsVersion() {
+        return specsVersion;
+    }
+
+    protected void logSpecsStats() {
+        if (processor != null && processor.getDuplicates() > 0) {
+            getLog().info(processor.getDuplicates() + " spec file(s) had the content of another spec file and were processed once");
+        }
+        if (documentCache != null && documentCache.getHits() + documentCache.getMisses() > 0) {
+            getLog().info("External ref cache: " + documentCache.getHits() + " hits, " + documentCache.getMisses() + " misses");
+        }
+    }
+
+    /**
+     * Saves the spec cache and deletes the spilled content. The cached specs are served from the cache
+     * files, so this runs after the specs were written for the last time.
+     */
+    protected void closeSpecs() {
+        if (specCache != null) {
+            specCache.save();
+        }
+        if (processor != null) {
+            processor.close();
+        }
+        if (runSpoolDirectory != null) {
+            InspectoorUtil.deleteRecursively(runSpoolDirectory);
+        }
+    }
+
+    /**
+     * The spilled content of this execution goes to a directory of its own below inspectoor.spoolDirectory,
+     * only this directory is deleted afterwards. Parallel executions do not share it either.
+     */
+    private Path createRunSpoolDirectory() throws MojoExecutionException {
+        try {
+            runSpoolDirectory = Files.createTempDirectory(Files.createDirectories(spoolDirectory.toPath()), "run");
+            return runSpoolDirectory;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not create the spool directory in " + spoolDirectory, e);
+        }
+    }
+
+    /**
+     * Runs the spec processing on the configured threads, sequentially on the maven thread with one thread
+     * @param work
+     * @return the result of work
+     */
+    protected <T> T withSpecsExecutor(Function<Executor, T> work) {
+        boolean virtual = virtualThreads && InspectoorExecutors.virtualThreadsAvailable();
+        if (virtualThreads && !virtual) {
+            getLog().info("Virtual threads need Java 21, falling back to " + threads + " threads");
+        }
+        if (threads <= 1 && !virtual) {
+            return work.apply(Runnable::run);
+        }
+
+        getLog().info(virtual ? "Processing specs on virtual threads" : "Processing specs with " + threads + " threads");
+        ExecutorService executor = InspectoorExecutors.newExecutor(virtual, threads);
+        try {
+            return work.apply(executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<SpecLocator> createLocators() throws MojoExecutionException {
+        try {
+            return SpecLocators.create(specLocators, getClass().getClassLoader());
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid spec locator: " + e.getMessage(), e);
+        }
+    }
+
+    private SpecCodec createCodec() throws MojoExecutionException {
+        try {
+            return SpecCodecs.create(codec, compressionLevel, compressionDictionary == null ? null : compressionDictionary.toPath());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Invalid spec codec: " + e.getMessage(), e);
+        }
+    }
+}
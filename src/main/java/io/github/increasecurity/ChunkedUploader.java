@@ -0,0 +1,250 @@
+package io.github.increasecurity;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.FormBody;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Uploads a file gzip compressed in chunks of a fixed size. The compressed stream is produced on the
+ * fly and only one chunk is held in memory. Gzip output is deterministic, so after a broken
+ * connection the stream is produced again and the chunks the backend already acknowledged are skipped.
+ * <p>
+ * Protocol, relative to the upload url:
+ * <ul>
+ *     <li>GET chunks/{uploadId} answers {"acknowledged": n}, the number of chunks received in order, or 404</li>
+ *     <li>PUT chunks/{uploadId}/{index} with the chunk as body and its sha-256 in X-INSPECTOOR-CHUNK-SHA256</li>
+ *     <li>POST chunks/{uploadId}/complete with the form fields of the multipart upload plus chunks, sha256 and encoding</li>
+ * </ul>
+ * The uploadId is the sha-256 of the uncompressed file and the chunk size.
+ */
+@Slf4j
+public class ChunkedUploader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_RESUMES = 5;
+    public static final String CHUNK_SHA256_HEADER = "X-INSPECTOOR-CHUNK-SHA256";
+
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private final OkHttpClient client;
+    private final String url;
+    private final String apiKey;
+    private final int chunkSize;
+    private final int maxResumes;
+
+    public ChunkedUploader(OkHttpClient client, String url, String apiKey, int chunkSize, int maxResumes) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.client = client;
+        this.url = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        this.apiKey = apiKey;
+        this.chunkSize = chunkSize;
+        this.maxResumes = maxResumes;
+    }
+
+    @FunctionalInterface
+    interface ChunkConsumer {
+        void accept(int index, byte[] chunk, int length) throws IOException;
+    }
+
+    /**
+     * @param file
+     * @param form fields sent with the completion request
+     * @return the response code of the completion request
+     * @throws IOException if the upload could not be completed within maxResumes attempts
+     */
+    public int upload(Path file, FormBody form) throws IOException {
+        String uploadId = uploadId(file);
+        for (int attempt = 0; ; attempt++) {
+            try {
+                int acknowledged = acknowledgedChunks(uploadId);
+                if (acknowledged > 0) {
+                    log.info("Resuming upload {} after chunk {}", uploadId, acknowledged);
+                }
+                MessageDigest digest = sha256();
+                int chunks = compress(file, digest, (index, chunk, length) -> {
+                    if (index >= acknowledged) {
+                        putChunk(uploadId, index, chunk, length);
+                    }
+                });
+                return complete(uploadId, chunks, HexFormat.of().formatHex(digest.digest()), form);
+            } catch (IOException e) {
+                if (attempt >= maxResumes) {
+                    throw e;
+                }
+                log.warn("Chunked upload {} interrupted: {}, resuming", uploadId, e.getMessage());
+            }
+        }
+    }
+
+    int compress(Path file, MessageDigest digest, ChunkConsumer consumer) throws IOException {
+        ChunkingOutputStream chunking = new ChunkingOutputStream(chunkSize, consumer);
+        try (InputStream in = Files.newInputStream(file);
+             OutputStream out = new GZIPOutputStream(new DigestOutputStream(chunking, digest), 8192)) {
+            in.transferTo(out);
+        }
+        return chunking.getChunks();
+    }
+
+    private int acknowledgedChunks(String uploadId) throws IOException {
+        Request request = new Request.Builder()
+                .url(url + "/chunks/" + uploadId)
+                .header("X-INSPECTOOR-APIKEY", apiKey)
+                .get()
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                return 0;
+            }
+            return Mappers.JSON_READER.readTree(body.byteStream()).path("acknowledged").asInt(0);
+        }
+    }
+
+    private void putChunk(String uploadId, int index, byte[] chunk, int length) throws IOException {
+        MessageDigest chunkDigest = sha256();
+        chunkDigest.update(chunk, 0, length);
+        Request request = new Request.Builder()
+                .url(url + "/chunks/" + uploadId + "/" + index)
+                .header("X-INSPECTOOR-APIKEY", apiKey)
+                .header(CHUNK_SHA256_HEADER, HexFormat.of().formatHex(chunkDigest.digest()))
+                .put(RequestBody.create(chunk, OCTET_STREAM, 0, length))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("chunk " + index + " was rejected with Response Code: " + response.code());
+            }
+        }
+    }
+
+    private int complete(String uploadId, int chunks, String sha256, FormBody form) throws IOException {
+        FormBody.Builder body = new FormBody.Builder();
+        for (int i = 0; i < form.size(); i++) {
+            body.add(form.name(i), form.value(i));
+        }
+        body.add("chunks", String.valueOf(chunks))
+                .add("sha256", sha256)
+                .add("encoding", "gzip");
+
+        Request request = new Request.Builder()
+                .url(url + "/chunks/" + uploadId + "/complete")
+                .header("X-INSPECTOOR-APIKEY", apiKey)
+                .post(body.build())
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            log.info("Chunked upload {} completed with {} chunks, Response Code: {}", uploadId, chunks, response.code());
+            return response.code();
+        }
+    }
+
+    private String uploadId(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        digest.update(Integer.toString(chunkSize).getBytes());
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Collects the written bytes into chunks of a fixed size, the last chunk may be smaller
+     */
+    static class ChunkingOutputStream extends OutputStream {
+        private final byte[] buffer;
+        private final ChunkConsumer consumer;
+        private int position;
+        private int chunks;
+        private boolean closed;
+        private boolean failed;
+
+        ChunkingOutputStream(int chunkSize, ChunkConsumer consumer) {
+            this.buffer = new byte[chunkSize];
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkNotFailed();
+            buffer[position++] = (byte) b;
+            if (position == buffer.length) {
+                emit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkNotFailed();
+            while (len > 0) {
+                int count = Math.min(len, buffer.length - position);
+                System.arraycopy(b, off, buffer, position, count);
+                position += count;
+                off += count;
+                len -= count;
+                if (position == buffer.length) {
+                    emit();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed && !failed) {
+                closed = true;
+                if (position > 0) {
+                    emit();
+                }
+            }
+        }
+
+        int getChunks() {
+            return chunks;
+        }
+
+        private void checkNotFailed() throws IOException {
+            if (failed) {
+                throw new IOException("a previous chunk failed");
+            }
+        }
+
+        private void emit() throws IOException {
+            try {
+                consumer.accept(chunks, buffer, position);
+            } catch (IOException e) {
+                // nothing may be sent after a failed chunk, not even while the streams are closed
+                failed = true;
+                throw e;
+            }
+            chunks++;
+            position = 0;
+        }
+    }
+}
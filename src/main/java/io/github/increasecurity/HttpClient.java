@@ -1,10 +1,22 @@
 package io.github.increasecurity;
 
+import io.github.increasecurity.model.Project;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSink;
 
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPOutputStream;
 
 
 @Slf4j
@@ -12,31 +24,162 @@ public class HttpClient {
 
     public static final String JSON = "application/json";
     public static final MediaType JSON_MEDIA_TYPE = MediaType.get(JSON);
+    public static final String DIGEST_HEADER = "X-INSPECTOOR-DIGEST";
+
+    private static HttpSettings settings = new HttpSettings();
+    private static volatile OkHttpClient client;
 
     private HttpClient() {
         throw new IllegalStateException("Utility class");
     }
 
     /**
-     * Upload project meta data
-     * @param json
+     * Upload project meta data. The JSON is serialized directly into the request body, so the
+     * payload never exists as a whole in memory.
+     * @param project
      * @param url
      * @param apiKey
+     * @param digest sent as {@link #DIGEST_HEADER}, the backend may answer 304 if it already knows the payload
+     * @param gzip compress the body and send it with Content-Encoding gzip
+     * @return the response code, -1 if the request failed
+     */
+    public static int doPostRequest(Project project, String url, String apiKey, String digest, boolean gzip) {
+        return doPostRequest(project, url, apiKey, digest, gzip, sent -> { });
+    }
+
+    /**
+     * @param sent receives the size of the request body as sent, compressed with gzip, once per attempt
+     * @see #doPostRequest(Project, String, String, String, boolean)
      */
-    public static void doPostRequest(String json, String url, String apiKey) {
+    public static int doPostRequest(Project project, String url, String apiKey, String digest, boolean gzip, LongConsumer sent) {
         log.info("doPostRequest URL {}", url);
-        RequestBody body = RequestBody.create(JSON_MEDIA_TYPE, json);
+        RequestBody body = projectBody(project, gzip, sent);
         Request.Builder requestBuilder = new Request.Builder()
                 .url(url)
                 .post(body);
+        if (gzip) {
+            requestBuilder.header("Content-Encoding", "gzip");
+        }
 
         Request request = requestBuilder.header("Content-Type", JSON)
-                .header("X-INSPECTOOR-APIKEY", apiKey).build();
+                .header("X-INSPECTOOR-APIKEY", apiKey)
+                .header(DIGEST_HEADER, digest).build();
 
         try (Response response = getClient().newCall(request).execute()) {
-            log.info("Response Code: {}", response.code());
+            logResponse(response);
+            return response.code();
         } catch (IOException e) {
             log.error("Exception in doPostRequest", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Upload several spooled project payloads in one request, as a json array of the projects.
+     * The files are streamed into the request body one after the other.
+     * @param payloads json files written by {@link UploadSpool}
+     * @param url
+     * @param apiKey
+     * @param gzip compress the body and send it with Content-Encoding gzip
+     * @return the response code, -1 if the request failed
+     */
+    public static int doPostBatch(List<Path> payloads, String url, String apiKey, boolean gzip) {
+        log.info("doPostBatch URL {} with {} project(s)", url, payloads.size());
+        Request.Builder requestBuilder = new Request.Builder()
+                .url(url)
+                .post(batchBody(payloads, gzip));
+        if (gzip) {
+            requestBuilder.header("Content-Encoding", "gzip");
+        }
+        Request request = requestBuilder.header("Content-Type", JSON)
+                .header("X-INSPECTOOR-APIKEY", apiKey)
+                .build();
+
+        try (Response response = getClient().newCall(request).execute()) {
+            logResponse(response);
+            return response.code();
+        } catch (IOException e) {
+            log.error("Exception in doPostBatch", e);
+            return -1;
+        }
+    }
+
+    static RequestBody batchBody(List<Path> payloads, boolean gzip) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON_MEDIA_TYPE;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                OutputStream out = gzip ? new GZIPOutputStream(sink.outputStream(), 8192) : sink.outputStream();
+                out.write('[');
+                for (int i = 0; i < payloads.size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    Files.copy(payloads.get(i), out);
+                }
+                out.write(']');
+                if (out instanceof GZIPOutputStream gzipOut) {
+                    gzipOut.finish();
+                }
+                out.flush();
+            }
+        };
+    }
+
+    private static void logResponse(Response response) {
+        if (response.code() >= 400) {
+            log.error("{} {} failed with Response Code: {}", response.request().method(), response.request().url(), response.code());
+        } else {
+            log.info("Response Code: {}", response.code());
+        }
+    }
+
+    static RequestBody projectBody(Project project, boolean gzip, LongConsumer sent) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON_MEDIA_TYPE;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                CountingOutputStream counting = new CountingOutputStream(sink.outputStream());
+                if (gzip) {
+                    GZIPOutputStream out = new GZIPOutputStream(counting, 8192);
+                    InspectoorUtil.writeJson(project, out);
+                    out.finish();
+                } else {
+                    InspectoorUtil.writeJson(project, counting);
+                }
+                sent.accept(counting.count);
+            }
+        };
+    }
+
+    /**
+     * Counts the bytes of a streamed request body, the body is not buffered to learn its size
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
     }
 
@@ -47,10 +190,11 @@ public class HttpClient {
      * @param projectName
      * @param url
      * @param apiKey
+     * @param digest sent as {@link #DIGEST_HEADER}, the backend may answer 304 if it already knows the SBOM
+     * @return the response code, -1 if the request failed
      */
-    public static void uploadSBOM(String sbomFileName, String system, String projectName, String version,String url, String apiKey) {
+    public static int uploadSBOM(String sbomFileName, String system, String projectName, String version, String url, String apiKey, String digest) {
         log.info("uploadSBOM URL ={}", url);
-        OkHttpClient client = new OkHttpClient();
 
         RequestBody requestBody = new MultipartBody.Builder()
                 .setType(MultipartBody.FORM)
@@ -65,18 +209,101 @@ public class HttpClient {
                 .url(url)
                 .addHeader("X-INSPECTOOR-APIKEY", apiKey)
                 .addHeader("Accept", JSON)
+                .addHeader(DIGEST_HEADER, digest)
                 .post(requestBody)
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
-            log.info("Response Code: {}", response.code());
+        try (Response response = getClient().newCall(request).execute()) {
+            logResponse(response);
+            return response.code();
         } catch (IOException e) {
             log.error("Exception in uploadSBOM ", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Upload sbom json file gzip compressed in chunks, an interrupted upload is resumed
+     * after the last chunk the backend acknowledged. See {@link ChunkedUploader}.
+     * @param sbomFileName
+     * @param system
+     * @param projectName
+     * @param version
+     * @param url
+     * @param apiKey
+     * @param digest
+     * @param chunkSize
+     * @return the response code, -1 if the upload failed
+     */
+    public static int uploadSBOMChunked(String sbomFileName, String system, String projectName, String version, String url, String apiKey, String digest, int chunkSize) {
+        log.info("uploadSBOMChunked URL ={}", url);
+        FormBody form = new FormBody.Builder()
+                .add("projectName", projectName)
+                .add("system", system)
+                .add("version", version)
+                .add("digest", digest)
+                .build();
+        try {
+            int code = new ChunkedUploader(getClient(), url, apiKey, chunkSize, ChunkedUploader.DEFAULT_MAX_RESUMES)
+                    .upload(new File(sbomFileName).toPath(), form);
+            if (code >= 400) {
+                log.error("Chunked upload to {} failed with Response Code: {}", url, code);
+            }
+            return code;
+        } catch (IOException e) {
+            log.error("Exception in uploadSBOMChunked ", e);
+            return -1;
         }
     }
 
-    private static OkHttpClient getClient() {
-        return new OkHttpClient().newBuilder().build();
+    /**
+     * Replaces the settings of the shared client, the client is rebuilt on its next use
+     * @param settings
+     */
+    public static synchronized void configure(HttpSettings settings) {
+        HttpClient.settings = settings;
+        if (client != null) {
+            client.connectionPool().evictAll();
+            client = null;
+        }
+    }
+
+    /**
+     * @return the shared client, built from the current settings
+     */
+    public static OkHttpClient getClient() {
+        OkHttpClient result = client;
+        if (result == null) {
+            synchronized (HttpClient.class) {
+                if (client == null) {
+                    client = buildClient(settings);
+                }
+                result = client;
+            }
+        }
+        return result;
+    }
+
+    private static OkHttpClient buildClient(HttpSettings settings) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(settings.getConnectTimeoutSeconds(), TimeUnit.SECONDS)
+                .readTimeout(settings.getReadTimeoutSeconds(), TimeUnit.SECONDS)
+                .writeTimeout(settings.getWriteTimeoutSeconds(), TimeUnit.SECONDS)
+                .connectionPool(new ConnectionPool(settings.getMaxIdleConnections(), settings.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .protocols(settings.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                .addInterceptor(new RetryInterceptor(settings.getMaxRetries(), settings.getRetryBaseDelayMillis(), settings.getRetryMaxDelayMillis()));
+
+        String proxy = settings.getProxy();
+        if (!InspectoorUtil.isBlank(proxy)) {
+            String hostAndPort = proxy.replaceFirst("^https?://", "");
+            int separator = hostAndPort.lastIndexOf(':');
+            if (separator < 0) {
+                throw new InspectoorPluginException("Proxy has to be host:port, but was " + proxy);
+            }
+            builder.proxy(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(
+                    hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1)))));
+        }
+        return builder.build();
     }
 
 }
@@ -0,0 +1,23 @@
+package io.github.increasecurity;
+
+import lombok.Data;
+
+/**
+ * Settings of the shared http client, see {@link HttpClient#configure(HttpSettings)}
+ */
+@Data
+public class HttpSettings {
+    private long connectTimeoutSeconds = 10;
+    private long readTimeoutSeconds = 60;
+    private long writeTimeoutSeconds = 60;
+    private int maxIdleConnections = 5;
+    private long keepAliveSeconds = 300;
+    private boolean http2 = true;
+    /**
+     * host:port of a http proxy, no proxy if blank
+     */
+    private String proxy;
+    private int maxRetries = 3;
+    private long retryBaseDelayMillis = 500;
+    private long retryMaxDelayMillis = 30_000;
+}
@@ -1,13 +1,13 @@
 package io.github.increasecurity;
 
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.metrics.MetricsReport;
 import io.github.increasecurity.model.CheckSpecMode;
 import io.github.increasecurity.model.Project;
 import io.github.increasecurity.model.Server;
 import io.github.increasecurity.model.Spec;
-import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.BuildPluginManager;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -19,14 +19,19 @@ import org.codehaus.plexus.util.xml.Xpp3Dom;
 import org.twdata.maven.mojoexecutor.MojoExecutor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Mojo(name = "inspectoor", requiresDependencyResolution = ResolutionScope.COMPILE, aggregator = true)
-public class Inspectoor extends AbstractMojo {
+public class Inspectoor extends AbstractSpecsMojo {
 
     @Parameter(property = "ou", required = true)
     String ou;
@@ -34,55 +39,125 @@ public class Inspectoor extends AbstractMojo {
     String system;
     @Parameter(property = "tag")
     String tag;
-    @Parameter(property = "url")
-    String url;
-    @Parameter(property = "apikey")
-    String apikey;
     @Parameter(defaultValue = "${project}", required = true, readonly = true)
     MavenProject project;
     @Parameter(property = "checkspecs", defaultValue = "none")
     private String checkspecs;
     @Parameter(property = "command")
     private int command = 1;
+    @Parameter(property = "inspectoor.metricsFile", defaultValue = "${project.build.directory}/inspectoor-metrics.json")
+    private File metricsFile;
+    @Parameter(property = "inspectoor.metricsSlowest", defaultValue = "5")
+    private int metricsSlowest;
+    @Parameter(property = "inspectoor.stateDirectory", defaultValue = "${user.home}/.m2/inspectoor")
+    private File stateDirectory;
+    @Parameter(property = "inspectoor.forceUpload", defaultValue = "false")
+    private boolean forceUpload;
+    @Parameter(property = "inspectoor.spoolUpload", defaultValue = "false")
+    private boolean spoolUpload;
+    @Parameter(property = "inspectoor.uploadSpoolDirectory", defaultValue = "${user.home}/.m2/inspectoor/upload-spool")
+    private File uploadSpoolDirectory;
+    @Parameter(property = "inspectoor.dedupContent", defaultValue = "false")
+    private boolean dedupContent;
+    @Parameter(property = "inspectoor.sbomUpload", defaultValue = "multipart")
+    private String sbomUpload;
+    @Parameter(property = "inspectoor.sbomChunkSize")
+    private int sbomChunkSize = ChunkedUploader.DEFAULT_CHUNK_SIZE;
 
     @Parameter(property = "reactorProjects", readonly = true, required = true)
-    private List<MavenProject> reactorProjects;
-
-    @Parameter(defaultValue = "${session}")
-    private MavenSession mavenSession;
+    List<MavenProject> reactorProjects;
 
     @org.apache.maven.plugins.annotations.Component
     private BuildPluginManager pluginManager;
 
+    private UploadState uploadState;
+    final Metrics metrics = new Metrics();
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         getLog().info("############################## execute: inspectoor ##############################");
-        Project newProjekt = new PomReader().readPom(project, project.getParent(), reactorProjects, "saas", this.ou, this.system, this.tag, project.getVersion());
-        newProjekt.setGroupId(project.getGroupId());
-        newProjekt.setArtifactId(project.getArtifactId());
-
-        checkSpecs(collectAllSpecs(newProjekt));
-
-        switch (command) {
-            case 1:
-                printInfos(newProjekt);
-                break;
-            case 2:
-                printInfos(newProjekt);
-                uploadProject(newProjekt);
-                break;
-            case 3:
-                printInfos(newProjekt);
-                uploadProject(newProjekt);
-                uploadSbom();
-                break;
-            default:
-                getLog().warn("unknown command: " + command);
-                break;
+        if (sbomChunkSize <= 0) {
+            throw new MojoExecutionException("inspectoor.sbomChunkSize must be positive: " + sbomChunkSize);
+        }
+        configureHttpClient();
+        try {
+            Project newProjekt = readProject();
+            newProjekt.setGroupId(project.getGroupId());
+            newProjekt.setArtifactId(project.getArtifactId());
+
+            checkSpecs(collectAllSpecs(newProjekt));
+            if (dedupContent) {
+                getLog().info(InspectoorUtil.omitDuplicateContent(newProjekt) + " spec(s) refer to the content of another spec by its hash");
+            }
+
+            switch (command) {
+                case 1:
+                    printInfos(newProjekt);
+                    break;
+                case 2:
+                    printInfos(newProjekt);
+                    checkUploads(uploadProject(newProjekt));
+                    break;
+                case 3:
+                    printInfos(newProjekt);
+                    checkUploads(uploadProjectAndSbom(newProjekt));
+                    break;
+                default:
+                    getLog().warn("unknown command: " + command);
+                    break;
+            }
+        } finally {
+            // the cached specs are served from the cache files, evict only after the upload
+            closeSpecs();
+            reportMetrics();
+        }
+    }
+
+    private void reportMetrics() {
+        MetricsReport report = metrics.report(metricsSlowest);
+        Metrics.summary(report).forEach(line -> getLog().info(line));
+        Metrics.write(report, metricsFile.toPath());
+    }
+
+    /**
+     * Finds and processes the specs of the project and all its modules
+     * @return the module tree
+     */
+    Project readProject() throws MojoExecutionException {
+        SpecsFinder specsFinder = openSpecs(metrics);
+        try {
+            return withSpecsExecutor(executor -> new PomReader(specsFinder, executor, metrics)
+                    .readPom(project, project.getParent(), reactorProjects, "saas", this.ou, this.system, this.tag, project.getVersion()));
+        } finally {
+            logSpecsStats();
+        }
+    }
+
+    /**
+     * The project meta data is posted on a background thread while the SBOM is generated and
+     * uploaded on the maven thread, mojo executions have to stay on the maven thread.
+     * @param newProjekt
+     * @return the outcome of the project and the SBOM upload
+     */
+    private UploadOutcome[] uploadProjectAndSbom(Project newProjekt) {
+        ExecutorService executor = InspectoorExecutors.newExecutor(virtualThreads, 1);
+        try {
+            CompletableFuture<UploadOutcome> projectUpload = CompletableFuture
+                    .supplyAsync(() -> uploadProject(newProjekt), executor)
+                    .exceptionally(ex -> {
+                        getLog().error("error trying to upload the project meta data", ex);
+                        return UploadOutcome.FAILED;
+                    });
+            UploadOutcome sbomOutcome = uploadSbom();
+            UploadOutcome projectOutcome = projectUpload.join();
+            getLog().info("Project meta data: " + projectOutcome + ", SBOM: " + sbomOutcome);
+            return new UploadOutcome[]{projectOutcome, sbomOutcome};
+        } finally {
+            executor.shutdown();
         }
     }
 
-    private void uploadSbom() {
+    private UploadOutcome uploadSbom() {
         File pomFile = project.getModel().getPomFile();
         Plugin sbomPlugin = this.project.getPlugin("org.cyclonedx:cyclonedx-maven-plugin");
         if (sbomPlugin == null) {
@@ -92,19 +167,83 @@ public class Inspectoor extends AbstractMojo {
 
         try {
             MojoExecutor.ExecutionEnvironment executionEnvironment = MojoExecutor.executionEnvironment(this.project, mavenSession, pluginManager);
+            long start = metrics.start();
             MojoExecutor.executeMojo(sbomPlugin, "makeAggregateBom", getPluginConfiguration("json"), executionEnvironment);
             String sbomLocation = InspectoorUtil.readSBOMLocation(pomFile.getAbsolutePath());
-            HttpClient.uploadSBOM(sbomLocation, this.system, project.getName(), this.project.getVersion(),this.url + "/upload", this.apikey);
+            long sbomSize = new File(sbomLocation).length();
+            metrics.record(Metrics.Phase.SBOM, start, sbomSize);
+            String digest = InspectoorUtil.sbomDigest(sbomLocation);
+            String key = UploadState.key(this.url, this.system, this.project.getVersion(), "sbom");
+            if (isUnchanged(key, digest)) {
+                getLog().info("SBOM unchanged since the last upload, skipping it");
+                return UploadOutcome.UNCHANGED;
+            }
+            start = metrics.start();
+            int code = "chunked".equalsIgnoreCase(sbomUpload)
+                    ? HttpClient.uploadSBOMChunked(sbomLocation, this.system, project.getName(), this.project.getVersion(), this.url + "/upload", this.apikey, digest, sbomChunkSize)
+                    : HttpClient.uploadSBOM(sbomLocation, this.system, project.getName(), this.project.getVersion(), this.url + "/upload", this.apikey, digest);
+            metrics.record(Metrics.Phase.UPLOAD, start, sbomSize);
+            return recordOutcome(key, digest, code);
         } catch (Exception ex) {
             getLog().error("error trying to process SBOM", ex);
+            return UploadOutcome.FAILED;
+        }
+    }
+
+    private UploadOutcome uploadProject(Project newProjekt) {
+        if (getLog().isDebugEnabled()) {
+            getLog().debug("JSON outcome:                    ");
+            getLog().debug(InspectoorUtil.toJson(newProjekt));
+        }
+        try {
+            String digest = InspectoorUtil.digest(newProjekt);
+            getLog().info("Project meta data digest: " + digest);
+            String key = UploadState.key(this.url, this.system, this.project.getVersion(), "project");
+            if (isUnchanged(key, digest)) {
+                getLog().info("Project meta data unchanged since the last upload, skipping it");
+                return UploadOutcome.UNCHANGED;
+            }
+            if (spoolUpload) {
+                return spool(key, digest, newProjekt);
+            }
+            long start = metrics.start();
+            AtomicLong sent = new AtomicLong();
+            int code = HttpClient.doPostRequest(newProjekt, this.url + "/projects", this.apikey, digest, gzip, sent::set);
+            metrics.record(Metrics.Phase.UPLOAD, start, sent.get());
+            return recordOutcome(key, digest, code);
+        } catch (IOException ex) {
+            getLog().error("error trying to upload the project meta data", ex);
+            return UploadOutcome.FAILED;
         }
     }
 
-    private void uploadProject(Project newProjekt) {
-        String json = InspectoorUtil.toJson(newProjekt);
-        getLog().info("JSON outcome:                    ");
-        getLog().info(json);
-        HttpClient.doPostRequest(json, this.url + "/projects", this.apikey);
+    /**
+     * The upload-spool goal sends the payload later, together with the payloads of other builds, and
+     * records its digest once the batch was accepted.
+     */
+    private UploadOutcome spool(String key, String digest, Project newProjekt) throws IOException {
+        Path file = new UploadSpool(uploadSpoolDirectory.toPath()).write(key, digest, newProjekt);
+        getLog().info("Project meta data spooled to " + file);
+        return UploadOutcome.SPOOLED;
+    }
+
+    private boolean isUnchanged(String key, String digest) {
+        return !forceUpload && digest.equals(uploadState().lastDigest(key));
+    }
+
+    private UploadOutcome recordOutcome(String key, String digest, int code) {
+        UploadOutcome outcome = UploadOutcome.fromStatusCode(code);
+        if (outcome != UploadOutcome.FAILED) {
+            uploadState().record(key, digest);
+        }
+        return outcome;
+    }
+
+    private synchronized UploadState uploadState() {
+        if (uploadState == null) {
+            uploadState = new UploadState(stateDirectory.toPath());
+        }
+        return uploadState;
     }
 
     private void checkSpecs(List<Spec> specs) throws MojoExecutionException {
@@ -0,0 +1,77 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.model.Project;
+import io.github.increasecurity.model.Spec;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the module tree like the inspectoor goal, but takes the specs of every module from the fragment
+ * the module goal wrote during the build of the module. Modules without a current fragment, or whose spec
+ * files were changed, added or removed since it was written, are processed here. Printing and uploading are the same as in the
+ * inspectoor goal.
+ */
+@Mojo(name = "aggregate", requiresDependencyResolution = ResolutionScope.COMPILE, aggregator = true, threadSafe = true)
+public class InspectoorAggregateMojo extends Inspectoor {
+
+    @Override
+    Project readProject() throws MojoExecutionException {
+        SpecsFinder specsFinder = openSpecs(metrics);
+        AtomicInteger merged = new AtomicInteger();
+        try {
+            return withSpecsExecutor(executor -> new PomReader(module -> moduleSpecs(module, specsFinder, executor, merged), executor, metrics)
+                    .readPom(project, project.getParent(), reactorProjects, "saas", this.ou, this.system, this.tag, project.getVersion()));
+        } finally {
+            getLog().info(merged.get() + " module fragment(s) merged");
+            logSpecsStats();
+        }
+    }
+
+    private CompletableFuture<List<Spec>> moduleSpecs(MavenProject module, SpecsFinder specsFinder, Executor executor, AtomicInteger merged) {
+        return CompletableFuture.supplyAsync(() -> readFragment(module, specsFinder), executor)
+                .thenCompose(fragment -> {
+                    if (fragment == null) {
+                        return specsFinder.findModuleSpecsAsync(module, executor);
+                    }
+                    merged.incrementAndGet();
+                    return CompletableFuture.completedFuture(fragment.getSpecs());
+                });
+    }
+
+    private ModuleFragment readFragment(MavenProject module, SpecsFinder specsFinder) {
+        Path directory = ModuleFragment.directory(module);
+        try {
+            ModuleFragment fragment = ModuleFragment.read(directory, module.getBasedir().toPath());
+            if (fragment == null) {
+                getLog().warn("No module fragment in " + directory + ", processing the specs of " + module.getName());
+                return null;
+            }
+            if (!getSpecsVersion().equals(fragment.getVersion())) {
+                getLog().warn("The module fragment of " + module.getName() + " was written by " + fragment.getVersion() + ", processing its specs");
+                return null;
+            }
+            List<String> changed = fragment.changedInputs(module.getBasedir().toPath());
+            if (!changed.isEmpty()) {
+                getLog().warn(changed.size() + " spec file(s) of " + module.getName() + " changed since its fragment was written, e.g. " + changed.get(0) + ", processing its specs");
+                return null;
+            }
+            if (fragment.candidatesChanged(module.getBasedir().toPath(), specsFinder.findModuleSpecFiles(module))) {
+                getLog().warn("Spec files of " + module.getName() + " were added or removed since its fragment was written, processing its specs");
+                return null;
+            }
+            return fragment;
+        } catch (IOException e) {
+            getLog().warn("Could not read the module fragment in " + directory + " " + e.getMessage() + ", processing the specs of " + module.getName());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.increasecurity;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class InspectoorExecutors {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = lookupVirtualThreadExecutor();
+
+    private InspectoorExecutors() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return true on a jvm with virtual threads, Java 21 or later
+     */
+    public static boolean virtualThreadsAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * One virtual thread per task if requested and available, otherwise the bounded pool. The plugin is
+     * built for Java 17, so the executor of Java 21 is looked up reflectively. Blocking file and http io
+     * unmounts a virtual thread and does not tie up a carrier thread.
+     * @param virtualThreads use virtual threads if the jvm has them
+     * @param threads size of the bounded pool
+     * @return
+     */
+    public static ExecutorService newExecutor(boolean virtualThreads, int threads) {
+        if (virtualThreads && NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // e.g. a preview jvm without --enable-preview
+                log.warn("Virtual threads could not be started, falling back to {} threads {}", Math.max(1, threads), e.toString());
+            }
+        }
+        return newBoundedExecutor(threads);
+    }
+
+    /**
+     * Fixed size pool for spec discovery and processing, the threads are daemons so a hanging
+     * remote spec can never keep the maven jvm alive
+     * @param threads
+     * @return
+     */
+    public static ExecutorService newBoundedExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "inspectoor-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Math.max(1, threads), threadFactory);
+    }
+
+    private static Method lookupVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.model.Spec;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Finds and processes the specs of the current module only and writes them as a fragment to
+ * target/inspectoor. It runs within the build of every module, so the modules are processed on the
+ * threads of a parallel build (-T), and the aggregate goal merges the fragments at the end.
+ */
+@Mojo(name = "module", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class InspectoorModuleMojo extends AbstractSpecsMojo {
+
+    @Parameter(defaultValue = "${project}", required = true, readonly = true)
+    MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        configureHttpClient();
+        Metrics metrics = new Metrics();
+        try {
+            SpecsFinder specsFinder = openSpecs(metrics);
+            // recorded in the fragment, the aggregate goal compares them with the spec files it finds
+            List<String> candidates = specsFinder.findModuleSpecFiles(project);
+            List<Spec> specs;
+            try {
+                specs = withSpecsExecutor(executor -> specsFinder.readSpecsAsync(candidates, executor).join());
+            } finally {
+                logSpecsStats();
+            }
+            // the spilled content is deleted by closeSpecs, the fragment keeps its own copy
+            Path directory = ModuleFragment.directory(project);
+            ModuleFragment.write(directory, project.getBasedir().toPath(), getSpecsVersion(),
+                    project.getGroupId() + ":" + project.getArtifactId(), candidates, specs);
+            getLog().info(specs.size() + " spec(s) of " + project.getName() + " written to " + directory);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not write the module fragment of " + project.getName(), e);
+        } finally {
+            closeSpecs();
+        }
+    }
+}
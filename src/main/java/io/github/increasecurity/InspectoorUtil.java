@@ -1,25 +1,32 @@
 package io.github.increasecurity;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.github.increasecurity.model.Project;
 import io.github.increasecurity.model.Spec;
 import io.github.increasecurity.openapi.OpenApiProcessor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.GZIPOutputStream;
 
 @Slf4j
@@ -58,58 +65,101 @@ public class InspectoorUtil {
 
     public static String toJson(Project project) {
         String json = "";
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_ABSENT);
         try {
-            json = objectMapper.writeValueAsString(project);
+            json = Mappers.PROJECT_WRITER.writeValueAsString(project);
         } catch (JsonProcessingException e) {
             log.error("Error in toJson {}", e.getMessage());
         }
         return json;
     }
 
+    /**
+     * Serializes the project straight into the stream, the stream is not closed
+     * @param project
+     * @param out
+     * @throws IOException
+     */
+    public static void writeJson(Project project, OutputStream out) throws IOException {
+        Mappers.PROJECT_WRITER.writeValue(out, project);
+    }
+
+    /**
+     * SHA-256 of the JSON of the project, computed without building the JSON in memory
+     * @param project
+     * @return
+     * @throws IOException
+     */
+    public static String digest(Project project) throws IOException {
+        MessageDigest messageDigest = sha256Digest();
+        try (DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), messageDigest)) {
+            writeJson(project, out);
+        }
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
     public static List<String> findOpenApiFiles(String srcPath) {
+        return findOpenApiFiles(srcPath, new SpecFileWalker());
+    }
+
+    /**
+     * Collects spec candidates. Whether a candidate really is an openapi file is decided by
+     * {@link OpenApiProcessor#readSpecFile(String)}, so every file gets parsed only once.
+     */
+    public static List<String> findOpenApiFiles(String srcPath, SpecFileWalker walker) {
         try {
-            return Files.walk(Paths.get(srcPath))
-                    .filter(path -> {
-                        String filePath = path.toString();
-                        return filePath.endsWith(".json") || filePath.endsWith(".yaml") || filePath.endsWith(".yml");
-                    })
-                    .map(Path::toString)
-                    .filter(InspectoorUtil::isValidOpenApiFile).toList();
+            return walker.walk(Paths.get(srcPath));
         } catch (IOException e) {
             log.warn("Something went wrong in findOpenApiFiles {} ", e.getMessage());
             return Collections.emptyList();
         }
     }
 
-    private static boolean isValidOpenApiFile(String fileName) {
-        try {
-            String content = new String(Files.readAllBytes(new File(fileName).toPath()));
-
-            if (fileName.endsWith(".json")) {
-                JSONObject json = new JSONObject(content);
-                return json.has("openapi") || json.has("swagger");
-            } else {
-                Yaml yaml = new Yaml();
-                Map<String, Object> yamlMap = yaml.load(content);
-                return yamlMap.containsKey("openapi") || yamlMap.containsKey("swagger");
-            }
-        } catch (Exception e) {
-            log.error("Error in isValidOpenApiFile {}", e.getMessage());
-            return false;
-        }
+    public static List<Spec> readSpecFiles(List<String> openApiFiles) {
+        return readSpecFilesAsync(openApiFiles, new OpenApiProcessor(), Runnable::run).join();
     }
 
-    public static List<Spec> readSpecFiles(List<String> openApiFiles) {
-        log.info("Found openApiFiles = " + openApiFiles.size());
-        OpenApiProcessor processor = new OpenApiProcessor();
-        return openApiFiles.stream()
-                .map(processor::readSpecFile)
-                .filter(Objects::nonNull).collect(Collectors.toList());
+    /**
+     * Processes every file as its own task on the executor. The result keeps the order of
+     * openApiFiles, no matter in which order the tasks complete.
+     * @param openApiFiles
+     * @param processor
+     * @param executor
+     * @return
+     */
+    public static CompletableFuture<List<Spec>> readSpecFilesAsync(List<String> openApiFiles, OpenApiProcessor processor, Executor executor) {
+        log.info("Found openApiFile candidates = " + openApiFiles.size());
+        List<CompletableFuture<Spec>> futures = openApiFiles.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> processor.readSpecFile(file), executor))
+                .toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(done -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Keeps the content of the first spec with a given content hash, in the order of the module tree,
+     * and removes it from all later specs. They refer to it by their content hash.
+     * @param project
+     * @return the number of specs without content
+     */
+    public static int omitDuplicateContent(Project project) {
+        return omitDuplicateContent(project, new HashSet<>());
+    }
+
+    private static int omitDuplicateContent(Project project, Set<String> seen) {
+        int omitted = 0;
+        for (Spec spec : project.getSpecs()) {
+            if (spec.getContentHash() != null && spec.getContent() != null && !seen.add(spec.getContentHash())) {
+                spec.setContent(null);
+                omitted++;
+            }
+        }
+        for (Project subProject : project.getProjects()) {
+            omitted += omitDuplicateContent(subProject, seen);
+        }
+        return omitted;
     }
 
     public static String adjustSrcPath(String pomFile) {
@@ -117,6 +167,47 @@ public class InspectoorUtil {
         return pomFile.replace(POM_FILE, toBeReplaced);
     }
 
+    public static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(sha256Digest().digest(bytes));
+    }
+
+    /**
+     * @param file streamed through the digest
+     * @return hex SHA-256 of the file
+     */
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest = sha256Digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Digest of the SBOM without its generation timestamp, which changes on every build
+     * @param sbomFile
+     * @return
+     * @throws IOException
+     */
+    public static String sbomDigest(String sbomFile) throws IOException {
+        JsonNode bom;
+        try (InputStream in = Files.newInputStream(Paths.get(sbomFile))) {
+            bom = Mappers.JSON_READER.readTree(in);
+        }
+        if (bom.path("metadata") instanceof ObjectNode metadata) {
+            metadata.remove("timestamp");
+        }
+        return sha256(Mappers.JSON_WRITER.writeValueAsBytes(bom));
+    }
+
     public static byte[] compress(byte[] jsonAsByte) throws IOException {
         ByteArrayOutputStream obj = new ByteArrayOutputStream();
         GZIPOutputStream gzip = new GZIPOutputStream(obj);
@@ -125,4 +216,25 @@ public class InspectoorUtil {
         return obj.toByteArray();
     }
 
+    /**
+     * Deletes a directory and everything below it, failures are only logged
+     * @param directory may not exist
+     */
+    public static void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.debug("Could not delete {} {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Could not delete {} {}", directory, e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,110 @@
+package io.github.increasecurity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import io.github.increasecurity.model.Project;
+import io.github.increasecurity.model.Spec;
+import io.github.increasecurity.openapi.SwaggerInternalFieldsModifier;
+import org.yaml.snakeyaml.LoaderOptions;
+
+import java.util.Map;
+
+/**
+ * Every jackson configuration of the plugin, built once. The mappers stay private so nobody can
+ * reconfigure them, callers get immutable and thread safe readers and writers which share the
+ * serializer caches of their mapper.
+ */
+public class Mappers {
+
+    private Mappers() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static final ObjectMapper JSON_MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final ObjectMapper YAML_MAPPER = JsonMapper.builder(yamlFactory()).build();
+
+    private static final ObjectMapper PROJECT_MAPPER = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .serializationInclusion(JsonInclude.Include.NON_ABSENT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private static final ObjectMapper OPENAPI_YAML_MAPPER = JsonMapper.builder(yamlFactory())
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .defaultPropertyInclusion(
+                    JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, JsonInclude.Include.NON_NULL)
+            )
+            .disable(MapperFeature.REQUIRE_HANDLERS_FOR_JAVA8_TIMES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
+            .addModule(new SimpleModule().setSerializerModifier(new SwaggerInternalFieldsModifier()))
+            .build();
+
+    private static final ObjectMapper SPEC_METADATA_MAPPER = JsonMapper.builder()
+            .addMixIn(Spec.class, WithoutContent.class)
+            .build();
+
+    @JsonIgnoreProperties("content")
+    private interface WithoutContent {
+    }
+
+    public static final JsonFactory JSON_FACTORY = JSON_MAPPER.getFactory();
+    public static final JsonFactory YAML_FACTORY = YAML_MAPPER.getFactory();
+
+    public static final ObjectReader JSON_READER = JSON_MAPPER.reader();
+    public static final ObjectWriter JSON_WRITER = JSON_MAPPER.writer();
+    public static final ObjectReader MAP_READER = JSON_MAPPER.readerFor(new TypeReference<Map<String, Object>>() {});
+
+    public static final ObjectReader YAML_READER = YAML_MAPPER.reader();
+    /**
+     * Yaml without the --- document start marker
+     */
+    public static final ObjectWriter YAML_WRITER = YAML_MAPPER.writer();
+
+    /**
+     * The project payload sent to the backend, does not close the target stream
+     */
+    public static final ObjectWriter PROJECT_WRITER = PROJECT_MAPPER.writerFor(Project.class);
+
+    /**
+     * A spec without its content, the spec cache keeps the content in a file of its own
+     */
+    public static final ObjectWriter SPEC_METADATA_WRITER = SPEC_METADATA_MAPPER.writerFor(Spec.class);
+
+    /**
+     * A module fragment, its specs without their content like in the spec cache
+     */
+    public static final ObjectWriter MODULE_FRAGMENT_WRITER = SPEC_METADATA_MAPPER.writerFor(ModuleFragment.class);
+
+    /**
+     * Resolved swagger models as yaml, without the internal fields of the swagger model
+     */
+    public static final ObjectWriter OPENAPI_YAML_WRITER = OPENAPI_YAML_MAPPER.writer();
+
+    private static YAMLFactory yamlFactory() {
+        LoaderOptions loaderOptions = new LoaderOptions();
+        // SnakeYAML refuses documents above 3 MB by default, large specs are common
+        loaderOptions.setCodePointLimit(Integer.MAX_VALUE);
+        return YAMLFactory.builder()
+                .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+                .loaderOptions(loaderOptions)
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.increasecurity;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.increasecurity.content.SpecContent;
+import io.github.increasecurity.model.Spec;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The specs of one module, written by the module goal to target/inspectoor and merged by the aggregate
+ * goal. module.json lists the spec files it was built from, with their SHA-256, as inputs, all spec files
+ * the walk and the plugin configurations found as candidates and the content files next to it as outputs. Locations are relative to the module, so a build cache can restore the
+ * fragment of an unchanged module into another checkout.
+ */
+@Data
+public class ModuleFragment {
+
+    public static final String DIRECTORY = "inspectoor";
+    static final String FILE = "module.json";
+    static final String CONTENT_SUFFIX = ".content";
+
+    private static final ObjectReader READER = Mappers.JSON_READER.forType(ModuleFragment.class);
+
+    /**
+     * Plugin version, codec and level of the specs, the fragment of another version is not merged
+     */
+    private String version;
+    private String module;
+    private List<Input> inputs = new ArrayList<>();
+    /**
+     * Sorted, a spec file added to the module or to its pom makes the fragment stale
+     */
+    private List<String> candidates = new ArrayList<>();
+    private List<String> outputs = new ArrayList<>();
+    private List<Spec> specs = new ArrayList<>();
+
+    /**
+     * A spec file the fragment was built from, relative to the module
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Input {
+        private String path;
+        private String sha256;
+
+        Input(String path, String sha256) {
+            this.path = path;
+            this.sha256 = sha256;
+        }
+    }
+
+    /**
+     * @param project
+     * @return target/inspectoor of the module
+     */
+    public static Path directory(MavenProject project) {
+        return Path.of(project.getBuild().getDirectory(), DIRECTORY);
+    }
+
+    /**
+     * Replaces the fragment of the previous build. The locations of the specs are made relative to basedir,
+     * their content is copied into one file per spec.
+     * @param directory
+     * @param basedir   of the module
+     * @param version   plugin version, codec and level of the specs
+     * @param module    groupId:artifactId
+     * @param specs
+     * @return the written fragment
+     */
+    public static ModuleFragment write(Path directory, Path basedir, String version, String module, List<Spec> specs) throws IOException {
+        return write(directory, basedir, version, module, List.of(), specs);
+    }
+
+    /**
+     * @param candidates the spec files the specs were read from, see {@link SpecsFinder#findModuleSpecFiles}
+     */
+    public static ModuleFragment write(Path directory, Path basedir, String version, String module, List<String> candidates, List<Spec> specs) throws IOException {
+        InspectoorUtil.deleteRecursively(directory);
+        Files.createDirectories(directory);
+        ModuleFragment fragment = new ModuleFragment();
+        fragment.setVersion(version);
+        fragment.setModule(module);
+        fragment.setCandidates(relativeCandidates(basedir, candidates));
+        for (int i = 0; i < specs.size(); i++) {
+            Spec spec = specs.get(i);
+            if (spec.getLocation() != null && !isUrl(spec.getLocation())) {
+                Path file = basedir.resolve(spec.getLocation());
+                spec.setLocation(relativize(basedir, spec.getLocation()));
+                fragment.getInputs().add(new Input(spec.getLocation(), Files.isRegularFile(file) ? InspectoorUtil.sha256(file) : null));
+            }
+            if (spec.getContent() != null) {
+                String name = i + CONTENT_SUFFIX;
+                spec.getContent().copyTo(directory.resolve(name));
+                fragment.getOutputs().add(name);
+            }
+            fragment.getSpecs().add(spec);
+        }
+        Mappers.MODULE_FRAGMENT_WRITER.writeValue(directory.resolve(FILE).toFile(), fragment);
+        return fragment;
+    }
+
+    /**
+     * The content of the specs stays in the content files until the specs are serialized.
+     * @param directory
+     * @param basedir   the relative locations are resolved against it
+     * @return the fragment or null if the module has none
+     */
+    public static ModuleFragment read(Path directory, Path basedir) throws IOException {
+        Path file = directory.resolve(FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        ModuleFragment fragment = READER.readValue(file.toFile());
+        for (int i = 0; i < fragment.getSpecs().size(); i++) {
+            Spec spec = fragment.getSpecs().get(i);
+            if (spec.getLocation() != null && !isUrl(spec.getLocation())) {
+                spec.setLocation(basedir.resolve(spec.getLocation()).normalize().toString());
+            }
+            String name = i + CONTENT_SUFFIX;
+            if (fragment.getOutputs().contains(name)) {
+                Path content = directory.resolve(name);
+                spec.setContent(SpecContent.ofFile(content, Files.size(content)));
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * @param basedir of the module
+     * @return the inputs which were changed or deleted since the fragment was written
+     */
+    public List<String> changedInputs(Path basedir) throws IOException {
+        List<String> changed = new ArrayList<>();
+        for (Input input : inputs) {
+            Path file = basedir.resolve(input.getPath());
+            if (input.getSha256() == null || !Files.isRegularFile(file) || !input.getSha256().equals(InspectoorUtil.sha256(file))) {
+                changed.add(input.getPath());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param basedir    of the module
+     * @param candidates the spec files found now, see {@link SpecsFinder#findModuleSpecFiles}
+     * @return true if spec files were added or removed since the fragment was written
+     */
+    public boolean candidatesChanged(Path basedir, List<String> candidates) {
+        return !this.candidates.equals(relativeCandidates(basedir, candidates));
+    }
+
+    private static List<String> relativeCandidates(Path basedir, List<String> candidates) {
+        return candidates.stream()
+                .map(candidate -> isUrl(candidate) ? candidate : relativize(basedir, candidate))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private static String relativize(Path basedir, String location) {
+        Path path = Path.of(location);
+        if (!path.isAbsolute()) {
+            return location;
+        }
+        // forward slashes, the fragment is shared between operating systems
+        return basedir.toAbsolutePath().normalize().relativize(path.normalize()).toString().replace('\\', '/');
+    }
+
+    private static boolean isUrl(String location) {
+        return location.startsWith("http://") || location.startsWith("https://");
+    }
+}
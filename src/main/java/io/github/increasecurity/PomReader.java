@@ -1,23 +1,104 @@
 package io.github.increasecurity;
 
+import io.github.increasecurity.metrics.Metrics;
 import io.github.increasecurity.model.Project;
 import io.github.increasecurity.model.Spec;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.project.MavenProject;
 
-import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import static io.github.increasecurity.InspectoorUtil.isBlank;
 import static io.github.increasecurity.InspectoorUtil.isBlankList;
 
 public class PomReader {
 
+    private final Function<MavenProject, CompletableFuture<List<Spec>>> moduleSpecs;
+    private final Executor executor;
+    private final Metrics metrics;
+
+    public PomReader() {
+        this(new SpecsFinder(), Runnable::run);
+    }
+
+    public PomReader(SpecsFinder specsFinder, Executor executor) {
+        this(specsFinder, executor, new Metrics());
+    }
+
+    /**
+     * @param specsFinder finds and reads the specs of every module
+     * @param executor runs the spec discovery and processing of all modules, the module tree itself
+     *                 is always built on the calling thread so its order does not depend on the executor
+     * @param metrics the wall time of every module, from its walk until its specs are merged, is recorded here
+     */
+    public PomReader(SpecsFinder specsFinder, Executor executor, Metrics metrics) {
+        this(module -> specsFinder.findModuleSpecsAsync(module, executor), executor, metrics);
+    }
+
+    /**
+     * @param moduleSpecs the specs of a module without its submodules, e.g. read from the fragment
+     *                    the module goal wrote during the build of the module
+     * @param metrics the wall time of every module, until its specs are merged, is recorded here
+     */
+    public PomReader(Function<MavenProject, CompletableFuture<List<Spec>>> moduleSpecs, Metrics metrics) {
+        this(moduleSpecs, Runnable::run, metrics);
+    }
+
+    /**
+     * @param moduleSpecs the specs of a module without its submodules
+     * @param executor the work of a module starts on it, its wall time is taken from there
+     * @param metrics the wall time of every module, until its specs are merged, is recorded here
+     */
+    public PomReader(Function<MavenProject, CompletableFuture<List<Spec>>> moduleSpecs, Executor executor, Metrics metrics) {
+        this.moduleSpecs = moduleSpecs;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
     public Project readPom(MavenProject mavenProject, MavenProject rootParent, List<MavenProject> reactorProjects, String realm, String ou, String system, String tag, String version) {
+        Reactor reactor = new Reactor(indexByBasedir(reactorProjects), new HashSet<>(), new ArrayList<>());
+        Project project = readModule(mavenProject, rootParent, reactor, realm, ou, system, tag, version);
+        CompletableFuture.allOf(reactor.pending().toArray(CompletableFuture[]::new)).join();
+        return project;
+    }
+
+    /**
+     * The reactor projects by their base directory, built once per build
+     * @param indexed the module tree is looked up here
+     * @param visited base directories of the modules read so far, every module is read once
+     * @param pending spec discovery of all modules
+     */
+    private record Reactor(Map<Path, MavenProject> indexed, Set<Path> visited, List<CompletableFuture<?>> pending) {
+    }
+
+    private static Map<Path, MavenProject> indexByBasedir(List<MavenProject> reactorProjects) {
+        Map<Path, MavenProject> index = new HashMap<>();
+        if (reactorProjects != null) {
+            for (MavenProject reactorProject : reactorProjects) {
+                if (reactorProject.getBasedir() != null) {
+                    index.putIfAbsent(normalize(reactorProject.getBasedir().toPath()), reactorProject);
+                }
+            }
+        }
+        return index;
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    private Project readModule(MavenProject mavenProject, MavenProject rootParent, Reactor reactor, String realm, String ou, String system, String tag, String version) {
         Project project = new Project();
-        File pomFile = mavenProject.getModel().getPomFile();
-        SpecsFinder specsFinder = new SpecsFinder();
         project.setName(mavenProject.getName());
         project.setVersion(version);
         project.setOu(ou);
@@ -25,24 +106,31 @@ public class PomReader {
         project.setSystem(system);
         project.setTag(tag);
         project.setRealm(realm);
+        if (mavenProject.getBasedir() != null) {
+            reactor.visited().add(normalize(mavenProject.getBasedir().toPath()));
+        }
 
-        String srcPath = InspectoorUtil.adjustSrcPath(pomFile.getAbsolutePath());
-        List<String> specsFiles = specsFinder.findSpecFiles(srcPath);
-
-        List<Spec> specs = specsFinder.readSpecs(specsFiles);
-        List<String> pomSpecFiles = specsFinder.findSpecFilesInPom(mavenProject);
-        specsFinder.mergeSpecFiles(pomSpecFiles, specs);
-        project.getSpecs().addAll(specs);
+        // not queued time, the module starts when the executor picks it up
+        reactor.pending().add(CompletableFuture.supplyAsync(metrics::start, executor)
+                .thenCompose(start -> moduleSpecs.apply(mavenProject)
+                        .thenAccept(specs -> {
+                            project.getSpecs().addAll(specs);
+                            metrics.recordModule(mavenProject.getName(), start, specs.size());
+                        })));
 
-        List<String> modules = mavenProject.getModules();
         if (!isBlankList(mavenProject.getModules())) {
             project.setMono(true);
         }
-        if (reactorProjects != null) {
-            for (MavenProject proj : reactorProjects) {
-                if (modules.contains(proj.getName())) {
-                    Project subProject = readPom(proj, rootParent, reactorProjects, realm, ou, system, tag, version);
-                    project.getProjects().add(subProject);
+        if (!isBlankList(mavenProject.getModules()) && mavenProject.getBasedir() != null) {
+            // a module entry is a directory or a pom file, relative to this module
+            for (String module : mavenProject.getModules()) {
+                Path modulePath = normalize(mavenProject.getBasedir().toPath().resolve(module));
+                MavenProject subModule = reactor.indexed().get(modulePath);
+                if (subModule == null && module.endsWith(".xml")) {
+                    subModule = reactor.indexed().get(modulePath.getParent());
+                }
+                if (subModule != null && reactor.visited().add(normalize(subModule.getBasedir().toPath()))) {
+                    project.getProjects().add(readModule(subModule, rootParent, reactor, realm, ou, system, tag, version));
                 }
             }
         }
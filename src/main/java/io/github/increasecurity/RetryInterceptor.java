@@ -0,0 +1,127 @@
+package io.github.increasecurity;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries requests on 429 and 5xx, except 501, with exponential backoff and jitter. Io errors are retried
+ * for idempotent methods, and for the others only if no connection was made, as an upload which failed
+ * later may have reached the backend already.
+ * A Retry-After header of the backend is honoured, if it asks for more than the maximum delay
+ * the response is returned as it is.
+ */
+@Slf4j
+class RetryInterceptor implements Interceptor {
+
+    private final int maxRetries;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    RetryInterceptor(int maxRetries, long baseDelayMillis, long maxDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        for (int attempt = 0; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (attempt >= maxRetries || !(isIdempotent(request.method()) || isNotSent(e))) {
+                    throw e;
+                }
+                long delay = backoff(attempt);
+                log.warn("{} {} failed: {}, retrying in {} ms", request.method(), request.url(), e.getMessage(), delay);
+                sleep(delay);
+                continue;
+            }
+
+            if (!isRetryable(response.code()) || attempt >= maxRetries) {
+                return response;
+            }
+            long delay = retryAfter(response.header("Retry-After"));
+            if (delay > maxDelayMillis) {
+                log.warn("{} {} answered {}, Retry-After exceeds {} ms, giving up", request.method(), request.url(), response.code(), maxDelayMillis);
+                return response;
+            }
+            if (delay < 0) {
+                delay = backoff(attempt);
+            }
+            log.warn("{} {} answered {}, retrying in {} ms", request.method(), request.url(), response.code(), delay);
+            response.close();
+            sleep(delay);
+        }
+    }
+
+    static boolean isRetryable(int code) {
+        return code == 429 || code >= 500 && code != 501;
+    }
+
+    static boolean isIdempotent(String method) {
+        return switch (method) {
+            case "GET", "HEAD", "OPTIONS", "PUT", "DELETE" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true if the request failed before it reached the backend
+     */
+    static boolean isNotSent(IOException e) {
+        return e instanceof ConnectException || e instanceof UnknownHostException;
+    }
+
+    /**
+     * Exponential backoff with equal jitter, half of the delay is random
+     */
+    long backoff(int attempt) {
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20));
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * @return the delay requested by a Retry-After header in seconds or as http date, -1 if there is none
+     */
+    static long retryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try the http date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(header.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a retry");
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.increasecurity;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Walks a source folder and collects the files which look like openapi specs.
+ * Excluded directories are pruned, files above maxFileSize are skipped and only the
+ * first sniffSize bytes of every candidate are read to look for a top level openapi or swagger key.
+ */
+@Slf4j
+public class SpecFileWalker {
+
+    public static final List<String> DEFAULT_INCLUDES = List.of("**/*.json", "**/*.yaml", "**/*.yml");
+    public static final List<String> DEFAULT_EXCLUDES = List.of("**/node_modules/**");
+    public static final long DEFAULT_MAX_FILE_SIZE = 50L * 1024 * 1024;
+    public static final int DEFAULT_SNIFF_SIZE = 8 * 1024;
+
+    private final List<String> includes;
+    private final List<String> excludes;
+    private final long maxFileSize;
+    private final int sniffSize;
+
+    public SpecFileWalker() {
+        this(DEFAULT_INCLUDES, DEFAULT_EXCLUDES, DEFAULT_MAX_FILE_SIZE, DEFAULT_SNIFF_SIZE);
+    }
+
+    /**
+     * @param includes    globs relative to the walked folder, a leading **&#47; also matches the folder itself
+     * @param excludes    globs relative to the walked folder, directories matching a pattern ending in /** are not entered
+     * @param maxFileSize larger files are skipped, 0 or less means no limit
+     * @param sniffSize   number of bytes read to look for the openapi or swagger key, 0 or less disables the sniff
+     */
+    public SpecFileWalker(List<String> includes, List<String> excludes, long maxFileSize, int sniffSize) {
+        this.includes = isEmpty(includes) ? DEFAULT_INCLUDES : includes;
+        this.excludes = excludes == null ? DEFAULT_EXCLUDES : excludes;
+        this.maxFileSize = maxFileSize;
+        this.sniffSize = sniffSize;
+    }
+
+    public List<String> walk(Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            log.debug("No source folder {}", root);
+            return Collections.emptyList();
+        }
+
+        List<PathMatcher> includeMatchers = compile(root.getFileSystem(), includes);
+        List<PathMatcher> excludeMatchers = compile(root.getFileSystem(), excludes);
+        List<String> result = new ArrayList<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path relative = root.relativize(dir);
+                if (!relative.toString().isEmpty() && matches(excludeMatchers, relative.resolve("_"))) {
+                    log.debug("Excluded directory {}", dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Path relative = root.relativize(file);
+                if (!attrs.isRegularFile() || !matches(includeMatchers, relative) || matches(excludeMatchers, relative)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (maxFileSize > 0 && attrs.size() > maxFileSize) {
+                    log.info("Skipping {}, {} bytes exceed the maximum spec file size", file, attrs.size());
+                    return FileVisitResult.CONTINUE;
+                }
+                if (sniffSize <= 0 || looksLikeSpec(file)) {
+                    result.add(file.toString());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                log.warn("Could not read {} {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result;
+    }
+
+    private boolean looksLikeSpec(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = in.readNBytes(sniffSize);
+            boolean complete = header.length < sniffSize || in.read() < 0;
+            return hasSpecKey(header, complete, file.toString().endsWith(".json") ? Mappers.JSON_FACTORY : Mappers.YAML_FACTORY);
+        } catch (IOException e) {
+            log.warn("Could not read {} {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Streams the top level keys of the header and stops at the first openapi or swagger key.
+     * Content which is no object counts as no spec, an object without such a key only if the header
+     * holds the whole file. If the header ends first the file stays a candidate and is parsed in full.
+     * @param complete the header is the whole file
+     */
+    static boolean hasSpecKey(byte[] header, boolean complete, JsonFactory factory) {
+        try (JsonParser parser = factory.createParser(header)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                if (OpenApiProcessor.OPENAPI_VALUE.equals(name) || OpenApiProcessor.SWAGGER_VALUE.equals(name)) {
+                    return true;
+                }
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            // yaml closes the open mappings at the end of a cut header as well
+            return !complete;
+        } catch (IOException e) {
+            return !complete;
+        }
+    }
+
+    private static List<PathMatcher> compile(FileSystem fileSystem, List<String> globs) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String glob : globs) {
+            String pattern = glob.trim();
+            if (pattern.isEmpty()) {
+                continue;
+            }
+            matchers.add(fileSystem.getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith("**/")) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + pattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        return matchers.stream().anyMatch(matcher -> matcher.matches(path));
+    }
+
+    private static boolean isEmpty(List<String> list) {
+        return list == null || list.isEmpty();
+    }
+}
@@ -1,77 +1,161 @@
 package io.github.increasecurity;
 
+import io.github.increasecurity.locator.SpecLocator;
+import io.github.increasecurity.locator.SpecLocators;
+import io.github.increasecurity.metrics.Metrics;
 import io.github.increasecurity.model.Spec;
 import io.github.increasecurity.openapi.OpenApiProcessor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import org.apache.maven.project.MavenProject;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import java.io.ByteArrayInputStream;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Slf4j
 public class SpecsFinder {
 
+    private final SpecFileWalker walker;
+    private final OpenApiProcessor processor;
+    private final Metrics metrics;
+    private final List<SpecLocator> locators;
+
+    public SpecsFinder() {
+        this(new SpecFileWalker(), new OpenApiProcessor());
+    }
+
+    public SpecsFinder(SpecFileWalker walker, OpenApiProcessor processor) {
+        this(walker, processor, new Metrics());
+    }
+
+    /**
+     * @param walker
+     * @param processor
+     * @param metrics the walk of every source folder is recorded here
+     */
+    public SpecsFinder(SpecFileWalker walker, OpenApiProcessor processor, Metrics metrics) {
+        this(walker, processor, metrics, SpecLocators.defaults());
+    }
+
+    /**
+     * @param walker
+     * @param processor
+     * @param metrics  the walk of every source folder is recorded here
+     * @param locators find the spec files in the configuration of the build plugins
+     */
+    public SpecsFinder(SpecFileWalker walker, OpenApiProcessor processor, Metrics metrics, List<SpecLocator> locators) {
+        this.walker = walker;
+        this.processor = processor;
+        this.metrics = metrics;
+        this.locators = List.copyOf(locators);
+    }
+
     public List<String> findSpecFiles(String srcPath) {
-        return InspectoorUtil.findOpenApiFiles(srcPath);
+        long start = metrics.start();
+        List<String> files = InspectoorUtil.findOpenApiFiles(srcPath, walker);
+        metrics.record(Metrics.Phase.WALK, start, 0);
+        return files;
     }
 
     public List<Spec> readSpecs(List<String> specsFiles) {
-        List<Spec> specs = new ArrayList<>();
-        if (!specsFiles.isEmpty()) {
-            specs = InspectoorUtil.readSpecFiles(specsFiles);
+        return readSpecsAsync(specsFiles, Runnable::run).join();
+    }
+
+    public CompletableFuture<List<Spec>> readSpecsAsync(List<String> specsFiles, Executor executor) {
+        if (specsFiles.isEmpty()) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
         }
-        return specs;
+        return InspectoorUtil.readSpecFilesAsync(specsFiles, processor, executor);
     }
 
+    /**
+     * Asks every locator which supports a build plugin of the project for the spec files in the
+     * configuration of each execution. The configuration is read as it is, without an xml round trip.
+     * @param project
+     * @return the spec files in the order of the plugins, without duplicates
+     */
     public List<String> findSpecFilesInPom(MavenProject project) {
-        List<String> foundFiles = new ArrayList<>();
-        List<String> targetPlugins = List.of("org.openapitools:openapi-generator-maven-plugin", "other.awesome.plugin"); // Falls weitere Plugins geprüft werden sollen
-
-        project.getBuildPlugins().stream()
-                .filter(plugin -> targetPlugins.contains(plugin.getKey()))
-                .map(Plugin::getExecutions)
-                .filter(Objects::nonNull)
-                .forEach(executions ->
-                    executions.stream()
-                            .map(PluginExecution::getConfiguration)
-                            .filter(Objects::nonNull)
-                            .map(Object::toString)
-                            .forEach(config -> {
-                                try {
-                                    foundFiles.addAll(extractYamlJsonPaths(config));
-                                } catch (Exception e) {
-                                    log.error("Error is findSpecFilesInPom message={}" , e.getMessage());
-                                }
-                            })
-                );
-
-        return foundFiles;
+        Set<String> foundFiles = new LinkedHashSet<>();
+        for (Plugin plugin : project.getBuildPlugins()) {
+            List<SpecLocator> matching = locators.stream()
+                    .filter(locator -> locator.supports(plugin.getKey()))
+                    .toList();
+            if (matching.isEmpty()) {
+                continue;
+            }
+            for (PluginExecution execution : plugin.getExecutions()) {
+                Xpp3Dom configuration = execution.getConfiguration() instanceof Xpp3Dom dom ? dom : new Xpp3Dom("configuration");
+                for (SpecLocator locator : matching) {
+                    try {
+                        foundFiles.addAll(locator.locate(configuration, project));
+                    } catch (RuntimeException e) {
+                        log.error("Error is findSpecFilesInPom plugin={} message={}", plugin.getKey(), e.getMessage());
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(foundFiles);
     }
 
     public void mergeSpecFiles(List<String> pomSpecFiles, List<Spec> specs) {
+        mergeSpecFilesAsync(pomSpecFiles, specs, Runnable::run).join();
+    }
+
+    /**
+     * Reads the spec files referenced in the pom which were not found in the sources and appends
+     * them to specs, in the order of pomSpecFiles.
+     * @param pomSpecFiles
+     * @param specs
+     * @param executor
+     * @return the given specs list
+     */
+    public CompletableFuture<List<Spec>> mergeSpecFilesAsync(List<String> pomSpecFiles, List<Spec> specs, Executor executor) {
         List<String> missingLocations = findMissingLocations(pomSpecFiles, specs);
-        if (missingLocations != null && !missingLocations.isEmpty()) {
-            missingLocations.stream().forEach(missingLocation -> {
-                OpenApiProcessor processor = new OpenApiProcessor();
-                Spec spec = processor.readSpecFile(missingLocation);
-                if (spec != null) {
-                    specs.add(spec);
-                }
-            });
+        if (missingLocations.isEmpty()) {
+            return CompletableFuture.completedFuture(specs);
         }
+        return InspectoorUtil.readSpecFilesAsync(missingLocations, processor, executor)
+                .thenApply(missingSpecs -> {
+                    specs.addAll(missingSpecs);
+                    return specs;
+                });
+    }
+
+    /**
+     * The specs of one module, without its submodules: the spec files below src/main followed by the
+     * spec files in the configuration of its build plugins.
+     * @param project
+     * @param executor
+     * @return the specs of the module
+     */
+    public CompletableFuture<List<Spec>> findModuleSpecsAsync(MavenProject project, Executor executor) {
+        return CompletableFuture
+                .supplyAsync(() -> findSpecFiles(srcPath(project)), executor)
+                .thenCompose(specsFiles -> readSpecsAsync(specsFiles, executor))
+                .thenCompose(specs -> mergeSpecFilesAsync(findSpecFilesInPom(project), specs, executor));
+    }
+
+    /**
+     * The spec files the specs of a module are read from, without reading them: the spec files below
+     * src/main followed by the spec files in the configuration of its build plugins.
+     * @param project
+     * @return the spec files without duplicates
+     */
+    public List<String> findModuleSpecFiles(MavenProject project) {
+        Set<String> files = new LinkedHashSet<>(findSpecFiles(srcPath(project)));
+        files.addAll(findSpecFilesInPom(project));
+        return new ArrayList<>(files);
+    }
+
+    private static String srcPath(MavenProject project) {
+        return InspectoorUtil.adjustSrcPath(project.getModel().getPomFile().getAbsolutePath());
     }
 
     private List<String> findMissingLocations(List<String> neuListe, List<Spec> existingSpecs) {
@@ -82,39 +166,4 @@ public class SpecsFinder {
         return neuListe.stream()
                 .filter(location -> !existingLocations.contains(location)).toList();
     }
-
-    private void secureXMLFactory(DocumentBuilderFactory factory) throws ParserConfigurationException {
-        // to be compliant, completely disable DOCTYPE declaration:
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        // or completely disable external entities declarations:
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        // or prohibit the use of all protocols by external entities:
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-        factory.setExpandEntityReferences(false);
-    }
-
-    private List<String> extractYamlJsonPaths(String xmlFile) throws Exception {
-        List<String> result = new ArrayList<>();
-
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        secureXMLFactory(factory);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        Document doc = builder.parse(new ByteArrayInputStream(xmlFile.getBytes()));
-        doc.getDocumentElement().normalize();
-
-        NodeList nodeList = doc.getElementsByTagName("*"); // Alle Knoten durchsuchen
-
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            Node node = nodeList.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String textContent = node.getTextContent().trim();
-                if (textContent.matches(".*\\.(yaml|yml|json)$")) {
-                    result.add(textContent);
-                }
-            }
-        }
-        return result;
-    }
 }
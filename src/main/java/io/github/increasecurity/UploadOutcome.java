@@ -0,0 +1,12 @@
+package io.github.increasecurity;
+
+public enum UploadOutcome {
+    UPLOADED, UNCHANGED, SPOOLED, FAILED;
+
+    public static UploadOutcome fromStatusCode(int code) {
+        if (code == 304) {
+            return UNCHANGED;
+        }
+        return code >= 200 && code < 300 ? UPLOADED : FAILED;
+    }
+}
@@ -0,0 +1,204 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.model.Project;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Project payloads waiting for a batch upload. Every payload is one json file named by the hash of its
+ * upload key and its digest, the key itself is kept in a .key file next to it. A newer payload of the same
+ * system and version replaces a spooled older one, the .key file is deleted with the last payload of
+ * its key. A payload is claimed by renaming it before it is sent,
+ * so a payload written during the upload is never taken for the one which was sent.
+ */
+@Slf4j
+public class UploadSpool {
+
+    static final String PAYLOAD_SUFFIX = ".json";
+    static final String CLAIMED_SUFFIX = ".sending";
+    static final String KEY_SUFFIX = ".key";
+
+    private final Path directory;
+
+    public UploadSpool(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param key     upload key of the project, see {@link UploadState#key}
+     * @param digest  digest of the project, recorded in the upload state once the payload was sent
+     * @param project serialized straight into the spool file
+     * @return the spool file
+     */
+    public Path write(String key, String digest, Project project) throws IOException {
+        Files.createDirectories(directory);
+        String keyHash = InspectoorUtil.sha256(key.getBytes(StandardCharsets.UTF_8));
+        Path tmp = Files.createTempFile(directory, keyHash, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                InspectoorUtil.writeJson(project, out);
+            }
+            Files.writeString(directory.resolve(keyHash + KEY_SUFFIX), key);
+            Path file = directory.resolve(keyHash + "." + digest + PAYLOAD_SUFFIX);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // claimed payloads of the key are being sent and stay
+            for (Path older : list()) {
+                if (!older.equals(file) && older.getFileName().toString().startsWith(keyHash + ".")) {
+                    Files.deleteIfExists(older);
+                }
+            }
+            return file;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return the spooled payloads which are not claimed, oldest first
+     */
+    public List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(PAYLOAD_SUFFIX))
+                    .sorted(Comparator.comparing(UploadSpool::lastModified).thenComparing(Path::getFileName))
+                    .toList();
+        }
+    }
+
+    /**
+     * Renames the payloads before they are sent. A payload which was replaced since it was listed is skipped.
+     * @param payloads listed payloads
+     * @return the claimed files, only these are sent and deleted or released afterwards
+     */
+    public List<Path> claim(List<Path> payloads) throws IOException {
+        List<Path> claimed = new ArrayList<>();
+        for (Path payload : payloads) {
+            Path target = payload.resolveSibling(baseName(payload) + "." + UUID.randomUUID() + CLAIMED_SUFFIX);
+            try {
+                Files.move(payload, target, StandardCopyOption.ATOMIC_MOVE);
+                claimed.add(target);
+            } catch (NoSuchFileException e) {
+                log.debug("{} was replaced or claimed by another upload", payload);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Removes claimed payloads after they were uploaded, and the .key file of a key without payloads
+     */
+    public void delete(List<Path> claimed) {
+        for (Path payload : claimed) {
+            try {
+                Files.deleteIfExists(payload);
+                deleteUnusedKey(keyHash(payload));
+            } catch (IOException e) {
+                log.warn("Could not delete {} {}", payload, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The key stays as long as a spooled or claimed payload of it exists
+     */
+    private void deleteUnusedKey(String keyHash) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            boolean used = files.map(file -> file.getFileName().toString())
+                    .anyMatch(name -> name.startsWith(keyHash + ".") && (name.endsWith(PAYLOAD_SUFFIX) || name.endsWith(CLAIMED_SUFFIX)));
+            if (!used) {
+                Files.deleteIfExists(directory.resolve(keyHash + KEY_SUFFIX));
+            }
+        }
+    }
+
+    /**
+     * Returns claimed payloads to the spool after a failed upload, unless a newer payload of the same key
+     * was written in the meantime
+     */
+    public void release(List<Path> claimed) {
+        for (Path payload : claimed) {
+            String keyHash = keyHash(payload);
+            try {
+                boolean replaced = list().stream().anyMatch(file -> keyHash.equals(keyHash(file)));
+                if (replaced) {
+                    Files.deleteIfExists(payload);
+                } else {
+                    Files.move(payload, payload.resolveSibling(baseName(payload) + PAYLOAD_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                log.warn("Could not release {} {}", payload, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param payload spooled or claimed payload
+     * @return the upload key of the payload or null if its .key file is missing
+     */
+    public String keyOf(Path payload) {
+        try {
+            return Files.readString(directory.resolve(keyHash(payload) + KEY_SUFFIX));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param payload spooled or claimed payload
+     * @return the digest of the project in the payload
+     */
+    public static String digestOf(Path payload) {
+        return payload.getFileName().toString().split("\\.")[1];
+    }
+
+    /**
+     * @param payloads  the spooled payloads
+     * @param batchSize maximum number of payloads per batch
+     * @return the payloads in batches, in their order
+     */
+    public static List<List<Path>> batches(List<Path> payloads, int batchSize) {
+        int size = Math.max(1, batchSize);
+        List<List<Path>> batches = new ArrayList<>();
+        for (int i = 0; i < payloads.size(); i += size) {
+            batches.add(payloads.subList(i, Math.min(payloads.size(), i + size)));
+        }
+        return batches;
+    }
+
+    private static String keyHash(Path payload) {
+        return payload.getFileName().toString().split("\\.")[0];
+    }
+
+    /**
+     * @return keyHash.digest of a spooled or claimed payload
+     */
+    private static String baseName(Path payload) {
+        return keyHash(payload) + "." + digestOf(payload);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.increasecurity;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Uploads the project payloads spooled by inspectoor.spoolUpload in batches, many projects per request
+ * over the shared connection pool. Uploaded payloads are removed from the spool and their digest is
+ * recorded in the upload state, failed batches stay for the next run.
+ */
+@Mojo(name = "upload-spool", requiresProject = false, aggregator = true)
+public class UploadSpoolMojo extends AbstractInspectoorMojo {
+
+    @Parameter(property = "inspectoor.uploadSpoolDirectory", defaultValue = "${user.home}/.m2/inspectoor/upload-spool")
+    private File uploadSpoolDirectory;
+    @Parameter(property = "inspectoor.batchSize", defaultValue = "50")
+    private int batchSize;
+    @Parameter(property = "inspectoor.uploadConcurrency", defaultValue = "2")
+    private int uploadConcurrency;
+    @Parameter(property = "inspectoor.stateDirectory", defaultValue = "${user.home}/.m2/inspectoor")
+    private File stateDirectory;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (InspectoorUtil.isBlank(url)) {
+            throw new MojoExecutionException("url is required to upload the spool");
+        }
+        configureHttpClient();
+        UploadSpool spool = new UploadSpool(uploadSpoolDirectory.toPath());
+        UploadState uploadState = new UploadState(stateDirectory.toPath());
+        List<Path> payloads;
+        try {
+            payloads = spool.list();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Could not read the upload spool " + spool.getDirectory(), e);
+        }
+        if (payloads.isEmpty()) {
+            getLog().info("No spooled projects in " + spool.getDirectory());
+            return;
+        }
+
+        List<List<Path>> batches = UploadSpool.batches(payloads, batchSize);
+        getLog().info("Uploading " + payloads.size() + " spooled project(s) in " + batches.size() + " batch(es)");
+        ExecutorService executor = InspectoorExecutors.newBoundedExecutor(uploadConcurrency);
+        try {
+            List<CompletableFuture<UploadOutcome>> uploads = batches.stream()
+                    .map(batch -> CompletableFuture.supplyAsync(() -> uploadBatch(spool, uploadState, batch), executor))
+                    .toList();
+            checkUploads(uploads.stream().map(CompletableFuture::join).toArray(UploadOutcome[]::new));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Only the claimed files are sent, a payload written during the upload stays for the next run
+     */
+    private UploadOutcome uploadBatch(UploadSpool spool, UploadState uploadState, List<Path> batch) {
+        List<Path> claimed;
+        try {
+            claimed = spool.claim(batch);
+        } catch (IOException e) {
+            getLog().error("Could not claim the spooled projects " + e.getMessage());
+            return UploadOutcome.FAILED;
+        }
+        if (claimed.isEmpty()) {
+            return UploadOutcome.UNCHANGED;
+        }
+        UploadOutcome outcome = UploadOutcome.FAILED;
+        try {
+            outcome = UploadOutcome.fromStatusCode(HttpClient.doPostBatch(claimed, this.url + "/projects/batch", this.apikey, gzip));
+        } finally {
+            if (outcome == UploadOutcome.FAILED) {
+                spool.release(claimed);
+            } else {
+                for (Path payload : claimed) {
+                    String key = spool.keyOf(payload);
+                    if (key != null) {
+                        uploadState.record(key, UploadSpool.digestOf(payload));
+                    }
+                }
+                spool.delete(claimed);
+            }
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.increasecurity;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers the digest of the last successful upload per backend, system, version and kind
+ * of upload, so unchanged payloads are not sent again.
+ */
+@Slf4j
+public class UploadState {
+
+    static final String STATE_FILE = "upload-state.properties";
+
+    private final Path file;
+    private final Properties digests = new Properties();
+
+    public UploadState(Path directory) {
+        this.file = directory.resolve(STATE_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                digests.load(in);
+            } catch (IOException e) {
+                log.warn("Could not read the upload state {}", e.getMessage());
+            }
+        }
+    }
+
+    public static String key(String url, String system, String version, String kind) {
+        return url + "|" + system + "|" + version + "|" + kind;
+    }
+
+    public synchronized String lastDigest(String key) {
+        return digests.getProperty(key);
+    }
+
+    public synchronized void record(String key, String digest) {
+        digests.setProperty(key, digest);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), STATE_FILE, ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                digests.store(out, "inspectoor upload state");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write the upload state {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.increasecurity.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In memory cache of external documents referenced by $refs, shared by all specs and modules of one build.
+ * Documents are keyed by their canonical uri, the least recently used ones are evicted once the
+ * cached documents exceed maxSize characters.
+ */
+@Slf4j
+public class DocumentCache {
+
+    public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+    private final long maxSize;
+    private final Map<String, String> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private long size;
+
+    public DocumentCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param uri canonical uri of the document
+     * @return the content or null if the document is not cached
+     */
+    public synchronized String get(String uri) {
+        String content = documents.get(uri);
+        if (content == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return content;
+    }
+
+    /**
+     * Documents larger than maxSize are not cached
+     * @param uri canonical uri of the document
+     * @param content
+     */
+    public synchronized void put(String uri, String content) {
+        if (content == null || content.length() > maxSize) {
+            return;
+        }
+        String previous = documents.put(uri, content);
+        if (previous != null) {
+            size -= previous.length();
+        }
+        size += content.length();
+
+        Iterator<Map.Entry<String, String>> leastRecentlyUsed = documents.entrySet().iterator();
+        while (size > maxSize && leastRecentlyUsed.hasNext()) {
+            Map.Entry<String, String> eldest = leastRecentlyUsed.next();
+            size -= eldest.getValue().length();
+            leastRecentlyUsed.remove();
+            log.debug("Evicted {} from the document cache", eldest.getKey());
+        }
+    }
+
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,291 @@
+package io.github.increasecurity.cache;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.github.increasecurity.Mappers;
+import io.github.increasecurity.content.SpecContent;
+import io.github.increasecurity.model.Spec;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On disk cache of processed specs. An entry is found by the location of the spec file and is
+ * valid as long as size and modification time are unchanged. Otherwise the sha-256 of the content
+ * decides, so a touched but unchanged file is still a hit. The processed spec is stored once per
+ * content hash. The whole cache is dropped when the plugin version changes.
+ */
+@Slf4j
+public class SpecCache {
+
+    public static final long DEFAULT_MAX_SIZE = 256L * 1024 * 1024;
+
+    static final int FORMAT_VERSION = 3;
+    static final String INDEX_FILE = "index.json";
+    private static final String SPEC_SUFFIX = ".spec.json";
+    private static final String CONTENT_SUFFIX = ".content";
+
+    private static final ObjectReader INDEX_READER = Mappers.JSON_READER.forType(Index.class);
+    private static final ObjectReader SPEC_READER = Mappers.JSON_READER.forType(Spec.class);
+
+    private final Path directory;
+    private final String pluginVersion;
+    private final long maxSize;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Loads the spec of a file which is not in the cache
+     */
+    @FunctionalInterface
+    public interface SpecLoader {
+        Spec load(byte[] bytes) throws IOException;
+    }
+
+    @Data
+    static class Entry {
+        private long size;
+        private long lastModified;
+        private String hash;
+        private long lastAccess;
+    }
+
+    @Data
+    static class Index {
+        private int format;
+        private String pluginVersion;
+        private Map<String, Entry> entries = new HashMap<>();
+    }
+
+    private SpecCache(Path directory, String pluginVersion, long maxSize, Map<String, Entry> entries) {
+        this.directory = directory;
+        this.pluginVersion = pluginVersion;
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    public static SpecCache open(Path directory, String pluginVersion, long maxSize) {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            try {
+                Index index = INDEX_READER.readValue(indexFile.toFile());
+                if (index.getFormat() == FORMAT_VERSION && Objects.equals(index.getPluginVersion(), pluginVersion)) {
+                    return new SpecCache(directory, pluginVersion, maxSize, index.getEntries());
+                }
+                log.info("Spec cache was written by plugin version {}, discarding it", index.getPluginVersion());
+            } catch (IOException e) {
+                log.warn("Spec cache index is not readable, discarding it {}", e.getMessage());
+            }
+        }
+        deleteSpecFiles(directory, Set.of());
+        return new SpecCache(directory, pluginVersion, maxSize, Map.of());
+    }
+
+    /**
+     * Returns the cached spec of the file or loads it with the loader and stores the result.
+     * Specs with external refs are never stored, their content depends on more than this file.
+     * @param location
+     * @param loader
+     * @return
+     * @throws IOException
+     */
+    public Spec get(String location, SpecLoader loader) throws IOException {
+        Path file = Paths.get(location);
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        Entry entry = entries.get(location);
+        if (entry != null && entry.getSize() == size && entry.getLastModified() == lastModified) {
+            Spec spec = readSpec(entry, location);
+            if (spec != null) {
+                return spec;
+            }
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        String hash = contentHash(location, bytes);
+        if (entry != null && hash.equals(entry.getHash())) {
+            Spec spec = readSpec(entry, location);
+            if (spec != null) {
+                entry.setSize(size);
+                entry.setLastModified(lastModified);
+                return spec;
+            }
+        }
+
+        misses.incrementAndGet();
+        Spec spec = loader.load(bytes);
+        if (spec == null || spec.isRequiresResolution()) {
+            entries.remove(location);
+            return spec;
+        }
+
+        writeSpec(hash, spec);
+        Entry newEntry = new Entry();
+        newEntry.setSize(size);
+        newEntry.setLastModified(lastModified);
+        newEntry.setHash(hash);
+        newEntry.setLastAccess(System.currentTimeMillis());
+        entries.put(location, newEntry);
+        return spec;
+    }
+
+    /**
+     * Evicts the least recently used specs above maxSize and writes the index
+     */
+    public void save() {
+        try {
+            Files.createDirectories(directory);
+            evict();
+            Index index = new Index();
+            index.setFormat(FORMAT_VERSION);
+            index.setPluginVersion(pluginVersion);
+            index.setEntries(new HashMap<>(entries));
+            Path tmp = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+            Mappers.JSON_WRITER.writeValue(tmp.toFile(), index);
+            Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Spec cache: {} hits, {} misses", hits.get(), misses.get());
+        } catch (IOException e) {
+            log.warn("Could not write the spec cache {}", e.getMessage());
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private void evict() throws IOException {
+        Map<String, Long> lastAccessByHash = entries.values().stream()
+                .collect(Collectors.toMap(Entry::getHash, Entry::getLastAccess, Math::max));
+        deleteSpecFiles(directory, lastAccessByHash.keySet());
+
+        List<String> leastRecentlyUsed = lastAccessByHash.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .toList();
+        long total = 0;
+        for (String hash : leastRecentlyUsed) {
+            total += sizeOf(specFile(hash)) + sizeOf(contentFile(hash));
+        }
+        for (String hash : leastRecentlyUsed) {
+            if (total <= maxSize) {
+                break;
+            }
+            total -= sizeOf(specFile(hash)) + sizeOf(contentFile(hash));
+            Files.deleteIfExists(specFile(hash));
+            Files.deleteIfExists(contentFile(hash));
+            entries.values().removeIf(entry -> hash.equals(entry.getHash()));
+        }
+    }
+
+    private Spec readSpec(Entry entry, String location) {
+        try {
+            Spec spec = SPEC_READER.readValue(specFile(entry.getHash()).toFile());
+            Path contentFile = contentFile(entry.getHash());
+            spec.setContent(SpecContent.ofFile(contentFile, Files.size(contentFile)));
+            spec.setName(Paths.get(location).getFileName().toString());
+            spec.setLocation(location);
+            entry.setLastAccess(System.currentTimeMillis());
+            hits.incrementAndGet();
+            return spec;
+        } catch (IOException e) {
+            log.debug("Cached spec of {} is not readable {}", location, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The content is stored next to the spec, a cached spec is served with its content backed by that file
+     */
+    private void writeSpec(String hash, Spec spec) throws IOException {
+        Files.createDirectories(directory);
+        Path tmp = Files.createTempFile(directory, hash, ".tmp");
+        spec.getContent().copyTo(tmp);
+        Files.move(tmp, contentFile(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tmp = Files.createTempFile(directory, hash, ".tmp");
+        Mappers.SPEC_METADATA_WRITER.writeValue(tmp.toFile(), spec);
+        Files.move(tmp, specFile(hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path specFile(String hash) {
+        return directory.resolve(hash + SPEC_SUFFIX);
+    }
+
+    private Path contentFile(String hash) {
+        return directory.resolve(hash + CONTENT_SUFFIX);
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteSpecFiles(Path directory, Set<String> keep) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> hashOf(file) != null)
+                    .filter(file -> !keep.contains(hashOf(file)))
+                    .forEach(file -> {
+                        try {
+                            Files.deleteIfExists(file);
+                        } catch (IOException e) {
+                            log.debug("Could not delete {}", file);
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("Could not clean the spec cache {}", e.getMessage());
+        }
+    }
+
+    private static String hashOf(Path file) {
+        String name = file.getFileName().toString();
+        for (String suffix : List.of(SPEC_SUFFIX, CONTENT_SUFFIX)) {
+            if (name.endsWith(suffix)) {
+                return name.substring(0, name.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The extension is part of the hash, json and yaml files with the same bytes are processed differently
+     */
+    static String contentHash(String location, byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(location.substring(location.lastIndexOf('.') + 1).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.increasecurity.content;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the content of a spec as Base64 of its compressed form. The content is streamed from its writer
+ * through the {@link SpecCodec} and Base64 into a {@link SpillBuffer}, so no full copy of the uncompressed
+ * or compressed content is held in memory on the way.
+ * Content spilled by {@link #encodeToContent} stays in its file until {@link #close()}.
+ */
+public class ContentEncoder implements AutoCloseable {
+
+    public static final int DEFAULT_LEVEL = GzipCodec.DEFAULT_LEVEL;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_SPILL_THRESHOLD = 64 * 1024;
+
+    private final SpecCodec codec;
+    private final int bufferSize;
+    private final int spillThreshold;
+    private final Path spoolDirectory;
+    private final Set<Path> spilled = ConcurrentHashMap.newKeySet();
+
+    public ContentEncoder() {
+        this(DEFAULT_LEVEL, DEFAULT_BUFFER_SIZE, DEFAULT_SPILL_THRESHOLD, null);
+    }
+
+    /**
+     * @param level          gzip level, 0 to 9 or -1 for the default of zlib
+     * @param bufferSize     size of the gzip and of the output buffer
+     * @param spillThreshold encoded bytes kept in memory before they are moved to a temp file
+     * @param spoolDirectory location of the temp files, null for the default temp directory
+     */
+    public ContentEncoder(int level, int bufferSize, int spillThreshold, Path spoolDirectory) {
+        this(new GzipCodec(level), bufferSize, spillThreshold, spoolDirectory);
+    }
+
+    /**
+     * @param codec          compresses the content before the Base64
+     * @param bufferSize     size of the codec and of the output buffer
+     * @param spillThreshold encoded bytes kept in memory before they are moved to a temp file
+     * @param spoolDirectory location of the temp files, null for the default temp directory
+     */
+    public ContentEncoder(SpecCodec codec, int bufferSize, int spillThreshold, Path spoolDirectory) {
+        this.codec = codec;
+        this.bufferSize = bufferSize;
+        this.spillThreshold = spillThreshold;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public SpecCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Writes the content of a spec, the writer may close the stream
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * @return the closed buffer with the Base64 of the compressed content, the caller deletes it
+     */
+    public SpillBuffer encode(ContentWriter writer) throws IOException {
+        SpillBuffer buffer = new SpillBuffer(spillThreshold, spoolDirectory);
+        try (OutputStream out = codec.compress(Base64.getEncoder().wrap(new BufferedOutputStream(buffer, bufferSize)), bufferSize)) {
+            writer.writeTo(out);
+        } catch (IOException | RuntimeException e) {
+            buffer.delete();
+            throw e;
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the Base64 of the compressed content, backed by the temp file if the buffer spilled
+     */
+    public SpecContent encodeToContent(ContentWriter writer) throws IOException {
+        SpillBuffer buffer = encode(writer);
+        if (buffer.isSpilled()) {
+            spilled.add(buffer.getFile());
+            if (spoolDirectory == null) {
+                // callers of the default temp directory which never close the encoder
+                buffer.getFile().toFile().deleteOnExit();
+            }
+            return SpecContent.ofFile(buffer.getFile(), buffer.size());
+        }
+        return SpecContent.of(buffer.toString(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * @return the Base64 of the compressed content
+     */
+    public String encodeToString(ContentWriter writer) throws IOException {
+        SpillBuffer buffer = encode(writer);
+        try {
+            // Base64 is plain ascii
+            return buffer.toString(StandardCharsets.ISO_8859_1);
+        } finally {
+            buffer.delete();
+        }
+    }
+
+    /**
+     * Deletes the files of the spilled content, the specs holding it must not be serialized afterwards
+     */
+    @Override
+    public void close() {
+        for (Path file : spilled) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // left to the spool directory cleanup or the exit of the jvm
+            }
+            spilled.remove(file);
+        }
+    }
+}
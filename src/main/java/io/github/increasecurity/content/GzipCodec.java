@@ -0,0 +1,50 @@
+package io.github.increasecurity.content;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip at a given level, the default codec
+ */
+public class GzipCodec implements SpecCodec {
+
+    public static final String NAME = "gzip";
+    public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+    private final int level;
+
+    public GzipCodec() {
+        this(DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param level 0 to 9 or -1 for the default of zlib
+     */
+    public GzipCodec(int level) {
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("gzip level must be between -1 and 9: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out, int bufferSize) throws IOException {
+        return new GZIPOutputStream(out, bufferSize) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.increasecurity.content;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compression of the spec content before it is Base64 encoded. The name is sent with every spec,
+ * the backend decodes the content with it.
+ */
+public interface SpecCodec {
+
+    String getName();
+
+    /**
+     * @return the compression level, not part of the name as the backend decodes every level alike
+     */
+    int getLevel();
+
+    /**
+     * @param out        receives the compressed content, closed with the returned stream
+     * @param bufferSize size of the buffer of the codec, a hint
+     * @return the stream the content is written to
+     */
+    OutputStream compress(OutputStream out, int bufferSize) throws IOException;
+}
@@ -0,0 +1,32 @@
+package io.github.increasecurity.content;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class SpecCodecs {
+
+    private SpecCodecs() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param name       gzip or zstd
+     * @param level      level of the codec, -1 for its default
+     * @param dictionary zstd dictionary file, may be null
+     * @return the codec
+     * @throws IOException if the dictionary is not readable
+     */
+    public static SpecCodec create(String name, int level, Path dictionary) throws IOException {
+        if (GzipCodec.NAME.equalsIgnoreCase(name)) {
+            if (dictionary != null) {
+                throw new IllegalArgumentException("gzip does not support a dictionary, use zstd");
+            }
+            return new GzipCodec(level);
+        }
+        if (ZstdCodec.NAME.equalsIgnoreCase(name)) {
+            return new ZstdCodec(level, dictionary == null ? null : Files.readAllBytes(dictionary));
+        }
+        throw new IllegalArgumentException("unknown codec " + name + ", use gzip or zstd");
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.increasecurity.content;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+/**
+ * The encoded content of a spec, either a string or a file which is only read while the spec is
+ * serialized. The content is Base64, so every character is one byte.
+ */
+@JsonSerialize(using = SpecContent.Serializer.class)
+@JsonDeserialize(using = SpecContent.Deserializer.class)
+public final class SpecContent {
+
+    private final String value;
+    private final Path file;
+    private final long length;
+
+    private SpecContent(String value, Path file, long length) {
+        this.value = value;
+        this.file = file;
+        this.length = length;
+    }
+
+    public static SpecContent of(String value) {
+        return new SpecContent(value, null, value.length());
+    }
+
+    /**
+     * @param file   must stay in place until the spec is serialized for the last time
+     * @param length size of the file
+     */
+    public static SpecContent ofFile(Path file, long length) {
+        return new SpecContent(null, file, length);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the file or null if the content is in memory
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    public Reader openReader() throws IOException {
+        return file == null ? new StringReader(value) : Files.newBufferedReader(file, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads file backed content into memory, meant for small specs and tests
+     */
+    public String asString() {
+        if (file == null) {
+            return value;
+        }
+        try {
+            return Files.readString(file, StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void copyTo(Path target) throws IOException {
+        if (file == null) {
+            Files.writeString(target, value, StandardCharsets.ISO_8859_1);
+        } else {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SpecContent other) || length != other.length) {
+            return false;
+        }
+        return Objects.equals(file, other.file) || asString().equals(other.asString());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(length);
+    }
+
+    @Override
+    public String toString() {
+        return "SpecContent(" + length + (file == null ? " chars)" : " chars in " + file + ")");
+    }
+
+    public static class Serializer extends JsonSerializer<SpecContent> {
+        @Override
+        public void serialize(SpecContent content, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            if (content.file == null) {
+                gen.writeString(content.value);
+                return;
+            }
+            try (Reader reader = content.openReader()) {
+                gen.writeString(reader, Math.toIntExact(content.length));
+            }
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<SpecContent> {
+        @Override
+        public SpecContent deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            return SpecContent.of(parser.getValueAsString());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.increasecurity.content;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Collects the written bytes in memory until threshold is exceeded, then moves them into a temp file.
+ * Closing the stream finishes the content, {@link #delete()} removes the temp file.
+ */
+public class SpillBuffer extends OutputStream {
+
+    private final int threshold;
+    private final Path directory;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path file;
+    private OutputStream fileOut;
+    private long size;
+
+    /**
+     * @param threshold bytes kept in memory before the buffer spills to disk
+     * @param directory location of the temp file, null for the default temp directory
+     */
+    public SpillBuffer(int threshold, Path directory) {
+        this.threshold = threshold;
+        this.directory = directory;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (file == null && memory.size() + len > threshold) {
+            spill();
+        }
+        if (file == null) {
+            memory.write(b, off, len);
+        } else {
+            fileOut.write(b, off, len);
+        }
+        size += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileOut != null) {
+            fileOut.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileOut != null) {
+            fileOut.close();
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * @return the temp file or null if the content is in memory
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Only valid after the buffer was closed
+     */
+    public InputStream openStream() throws IOException {
+        return file == null ? new ByteArrayInputStream(memory.toByteArray()) : Files.newInputStream(file);
+    }
+
+    /**
+     * Only valid after the buffer was closed
+     */
+    public String toString(Charset charset) throws IOException {
+        return file == null ? memory.toString(charset) : Files.readString(file, charset);
+    }
+
+    public void delete() throws IOException {
+        close();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void spill() throws IOException {
+        file = directory == null
+                ? Files.createTempFile("inspectoor", ".spill")
+                : Files.createTempFile(Files.createDirectories(directory), "inspectoor", ".spill");
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file), Math.max(8192, Math.min(threshold, 1 << 16)));
+        memory.writeTo(fileOut);
+        memory = null;
+    }
+}
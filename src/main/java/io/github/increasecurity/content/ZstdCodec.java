@@ -0,0 +1,63 @@
+package io.github.increasecurity.content;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * zstd, optionally with a dictionary trained on openapi documents. The frames carry the id of the
+ * dictionary, the codec name does as well: zstd-dict:&lt;id&gt;.
+ */
+public class ZstdCodec implements SpecCodec {
+
+    public static final String NAME = "zstd";
+    public static final String DICTIONARY_NAME = "zstd-dict";
+
+    private final int level;
+    private final ZstdDictCompress dictionary;
+    private final String name;
+
+    /**
+     * @param level 1 to 22, -1 for the default of zstd
+     */
+    public ZstdCodec(int level) {
+        this(level, null);
+    }
+
+    /**
+     * @param level      1 to 22, -1 for the default of zstd
+     * @param dictionary a dictionary as written by zstd --train, may be null
+     */
+    public ZstdCodec(int level, byte[] dictionary) {
+        int effectiveLevel = level == -1 ? Zstd.defaultCompressionLevel() : level;
+        if (effectiveLevel < 1 || effectiveLevel > Zstd.maxCompressionLevel()) {
+            throw new IllegalArgumentException("zstd level must be between 1 and " + Zstd.maxCompressionLevel() + ": " + level);
+        }
+        this.level = effectiveLevel;
+        // the digested dictionary is immutable and shared by all streams
+        this.dictionary = dictionary == null ? null : new ZstdDictCompress(dictionary, effectiveLevel);
+        this.name = dictionary == null ? NAME : DICTIONARY_NAME + ":" + Zstd.getDictIdFromDict(dictionary);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out, int bufferSize) throws IOException {
+        ZstdOutputStream zstd = new ZstdOutputStream(out, level);
+        if (dictionary != null) {
+            zstd.setDict(dictionary);
+        }
+        return zstd;
+    }
+}
@@ -0,0 +1,62 @@
+package io.github.increasecurity.locator;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Plugins which generate the spec during the build, springdoc and smallrye. The location is built from
+ * the output directory and file name parameters and their defaults. The file exists only after the
+ * plugin ran, a missing file is skipped when it is read.
+ */
+public class GeneratedSpecLocator implements SpecLocator {
+
+    private final String pluginKey;
+    private final String directoryParameter;
+    private final String defaultDirectory;
+    private final String fileParameter;
+    private final String defaultFile;
+    private final String suffix;
+
+    /**
+     * @param pluginKey          groupId:artifactId of the plugin
+     * @param directoryParameter parameter of the output directory
+     * @param defaultDirectory   default of the output directory, relative to the build directory
+     * @param fileParameter      parameter of the file name
+     * @param defaultFile        default of the file name
+     * @param suffix             appended to the file name, for plugins which add the extension
+     */
+    public GeneratedSpecLocator(String pluginKey, String directoryParameter, String defaultDirectory, String fileParameter, String defaultFile, String suffix) {
+        this.pluginKey = pluginKey;
+        this.directoryParameter = directoryParameter;
+        this.defaultDirectory = defaultDirectory;
+        this.fileParameter = fileParameter;
+        this.defaultFile = defaultFile;
+        this.suffix = suffix;
+    }
+
+    @Override
+    public boolean supports(String pluginKey) {
+        return this.pluginKey.equals(pluginKey);
+    }
+
+    @Override
+    public List<String> locate(Xpp3Dom configuration, MavenProject project) {
+        String directory = value(configuration, directoryParameter);
+        if (directory == null) {
+            directory = Path.of(project.getBuild().getDirectory()).resolve(defaultDirectory).toString();
+        }
+        String file = value(configuration, fileParameter);
+        return List.of(Path.of(directory).resolve((file == null ? defaultFile : file) + suffix).toString());
+    }
+
+    private static String value(Xpp3Dom configuration, String name) {
+        Xpp3Dom child = configuration.getChild(name);
+        if (child == null || child.getValue() == null || child.getValue().isBlank()) {
+            return null;
+        }
+        return child.getValue().trim();
+    }
+}
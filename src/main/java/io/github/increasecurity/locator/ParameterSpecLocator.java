@@ -0,0 +1,58 @@
+package io.github.increasecurity.locator;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Takes the values of the named parameters, at any depth of the configuration. Without parameter
+ * names every value ending with .yaml, .yml or .json is taken.
+ */
+public class ParameterSpecLocator implements SpecLocator {
+
+    private final Set<String> pluginKeys;
+    private final Set<String> parameters;
+
+    /**
+     * @param pluginKeys groupId:artifactId of the supported plugins
+     * @param parameters names of the parameters holding a spec, empty for any spec file value
+     */
+    public ParameterSpecLocator(Set<String> pluginKeys, Set<String> parameters) {
+        this.pluginKeys = Set.copyOf(pluginKeys);
+        this.parameters = Set.copyOf(parameters);
+    }
+
+    @Override
+    public boolean supports(String pluginKey) {
+        return pluginKeys.contains(pluginKey);
+    }
+
+    @Override
+    public List<String> locate(Xpp3Dom configuration, MavenProject project) {
+        List<String> found = new ArrayList<>();
+        collect(configuration, found);
+        return found;
+    }
+
+    private void collect(Xpp3Dom node, List<String> found) {
+        for (Xpp3Dom child : node.getChildren()) {
+            String value = child.getValue() == null ? null : child.getValue().trim();
+            if (value != null && !value.isEmpty() && matches(child.getName(), value)) {
+                found.add(value);
+            }
+            collect(child, found);
+        }
+    }
+
+    private boolean matches(String name, String value) {
+        if (!parameters.isEmpty()) {
+            return parameters.contains(name);
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".yaml") || lower.endsWith(".yml") || lower.endsWith(".json");
+    }
+}
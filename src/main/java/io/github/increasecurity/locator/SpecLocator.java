@@ -0,0 +1,27 @@
+package io.github.increasecurity.locator;
+
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.util.List;
+
+/**
+ * Finds the spec files a build plugin of the project is configured with. Further locators can be
+ * registered in META-INF/services/io.github.increasecurity.locator.SpecLocator of a dependency of
+ * the plugin, or configured with specLocators.
+ */
+public interface SpecLocator {
+
+    /**
+     * @param pluginKey groupId:artifactId of a build plugin
+     * @return true if the configuration of the plugin is read by this locator
+     */
+    boolean supports(String pluginKey);
+
+    /**
+     * @param configuration configuration of one execution of the plugin, empty if it has none
+     * @param project       the module of the plugin
+     * @return the spec files or urls, as configured
+     */
+    List<String> locate(Xpp3Dom configuration, MavenProject project);
+}
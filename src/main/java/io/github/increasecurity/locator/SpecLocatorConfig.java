@@ -0,0 +1,16 @@
+package io.github.increasecurity.locator;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A locator configured in the pom:
+ * &lt;specLocator&gt;&lt;plugin&gt;groupId:artifactId&lt;/plugin&gt;&lt;parameters&gt;&lt;parameter&gt;apiSpec&lt;/parameter&gt;&lt;/parameters&gt;&lt;/specLocator&gt;
+ */
+@Data
+public class SpecLocatorConfig {
+    private String plugin;
+    private List<String> parameters = new ArrayList<>();
+}
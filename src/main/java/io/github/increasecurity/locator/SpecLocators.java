@@ -0,0 +1,52 @@
+package io.github.increasecurity.locator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+public class SpecLocators {
+
+    public static final SpecLocator OPENAPI_GENERATOR = new ParameterSpecLocator(
+            Set.of("org.openapitools:openapi-generator-maven-plugin"), Set.of("inputSpec"));
+    public static final SpecLocator SWAGGER_CODEGEN = new ParameterSpecLocator(
+            Set.of("io.swagger.codegen.v3:swagger-codegen-maven-plugin", "io.swagger:swagger-codegen-maven-plugin"), Set.of("inputSpec"));
+    // outputDir defaults to ${project.build.directory}, outputFileName to openapi.json
+    public static final SpecLocator SPRINGDOC = new GeneratedSpecLocator(
+            "org.springdoc:springdoc-openapi-maven-plugin", "outputDir", "", "outputFileName", "openapi.json", "");
+    // outputDirectory defaults to ${project.build.directory}/generated, schemaFilename to openapi, json and yaml are written
+    public static final SpecLocator SMALLRYE = new GeneratedSpecLocator(
+            "io.smallrye:smallrye-open-api-maven-plugin", "outputDirectory", "generated", "schemaFilename", "openapi", ".yaml");
+
+    private SpecLocators() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return the built in locators and the ones registered as service
+     */
+    public static List<SpecLocator> defaults() {
+        return create(List.of(), SpecLocators.class.getClassLoader());
+    }
+
+    /**
+     * @param configured  locators configured in the pom, may be null
+     * @param classLoader services are loaded from it
+     * @return the built in, configured and registered locators
+     */
+    public static List<SpecLocator> create(List<SpecLocatorConfig> configured, ClassLoader classLoader) {
+        List<SpecLocator> locators = new ArrayList<>(List.of(OPENAPI_GENERATOR, SWAGGER_CODEGEN, SPRINGDOC, SMALLRYE));
+        if (configured != null) {
+            for (SpecLocatorConfig config : configured) {
+                if (config.getPlugin() == null || config.getPlugin().isBlank()) {
+                    throw new IllegalArgumentException("specLocator without plugin");
+                }
+                List<String> parameters = config.getParameters() == null ? List.of() : config.getParameters();
+                locators.add(new ParameterSpecLocator(Set.of(config.getPlugin().trim()), new HashSet<>(parameters)));
+            }
+        }
+        ServiceLoader.load(SpecLocator.class, classLoader).forEach(locators::add);
+        return locators;
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.increasecurity.metrics;
+
+import io.github.increasecurity.Mappers;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Wall time, bytes and counts of one mojo execution, per phase, per module and per spec.
+ * All methods are thread safe, timings are taken with {@link #start()} and recorded when the work is done.
+ */
+@Slf4j
+public class Metrics {
+
+    public enum Phase {
+        /** walking the source folders */
+        WALK,
+        /** reading local and fetching remote spec files */
+        READ,
+        /** parsing the spec and extracting its meta data */
+        PARSE,
+        /** resolving external refs */
+        RESOLVE,
+        /** writing the spec content as yaml through gzip and base64, bytes are the encoded size */
+        COMPRESS,
+        /** the cyclonedx execution */
+        SBOM,
+        /** the backend calls */
+        UPLOAD
+    }
+
+    private final long started = System.nanoTime();
+    private final Map<Phase, MetricsReport.PhaseMetrics> phases = new EnumMap<>(Phase.class);
+    private final Queue<MetricsReport.Timing> modules = new ConcurrentLinkedQueue<>();
+    private final Queue<MetricsReport.Timing> specs = new ConcurrentLinkedQueue<>();
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param phase
+     * @param start value of {@link #start()} when the work began
+     * @param bytes bytes processed, 0 if unknown
+     */
+    public void record(Phase phase, long start, long bytes) {
+        long nanos = System.nanoTime() - start;
+        synchronized (phases) {
+            MetricsReport.PhaseMetrics metrics = phases.computeIfAbsent(phase, MetricsReport.PhaseMetrics::new);
+            metrics.add(nanos, bytes);
+        }
+    }
+
+    public void recordModule(String name, long start, int specCount) {
+        modules.add(new MetricsReport.Timing(name, System.nanoTime() - start, 0, specCount));
+    }
+
+    public void recordSpec(String location, long start, long bytes) {
+        specs.add(new MetricsReport.Timing(location, System.nanoTime() - start, bytes, 1));
+    }
+
+    /**
+     * @param slowest number of modules and specs listed as slowest
+     * @return a snapshot of everything recorded so far
+     */
+    public MetricsReport report(int slowest) {
+        MetricsReport report = new MetricsReport();
+        report.setTotalMillis(MetricsReport.millis(System.nanoTime() - started));
+        synchronized (phases) {
+            phases.values().forEach(metrics -> report.getPhases().add(metrics.copy()));
+        }
+        report.getModules().addAll(modules);
+        report.getSpecs().addAll(specs);
+        report.getSlowestModules().addAll(slowest(report.getModules(), slowest));
+        report.getSlowestSpecs().addAll(slowest(report.getSpecs(), slowest));
+        return report;
+    }
+
+    /**
+     * @return the lines of the summary table, one per phase followed by the slowest modules and specs
+     */
+    public static List<String> summary(MetricsReport report) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-10s %8s %12s %14s", "phase", "count", "millis", "bytes"));
+        for (MetricsReport.PhaseMetrics metrics : report.getPhases()) {
+            lines.add(String.format("%-10s %8d %12.1f %14d", metrics.getPhase(), metrics.getCount(), metrics.getMillis(), metrics.getBytes()));
+        }
+        lines.add(String.format("%-10s %8s %12.1f", "total", "", report.getTotalMillis()));
+        for (MetricsReport.Timing module : report.getSlowestModules()) {
+            lines.add(String.format("slow module %10.1f ms %4d specs  %s", module.getMillis(), module.getCount(), module.getName()));
+        }
+        for (MetricsReport.Timing spec : report.getSlowestSpecs()) {
+            lines.add(String.format("slow spec   %10.1f ms %10d bytes  %s", spec.getMillis(), spec.getBytes(), spec.getName()));
+        }
+        return lines;
+    }
+
+    public static void write(MetricsReport report, Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Mappers.JSON_WRITER.withDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        } catch (IOException e) {
+            log.warn("Could not write the metrics to {} {}", file, e.getMessage());
+        }
+    }
+
+    private static List<MetricsReport.Timing> slowest(List<MetricsReport.Timing> timings, int limit) {
+        return timings.stream()
+                .sorted(Comparator.comparingDouble(MetricsReport.Timing::getMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.increasecurity.metrics;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The content of target/inspectoor-metrics.json
+ */
+@Data
+public class MetricsReport {
+
+    private double totalMillis;
+    private List<PhaseMetrics> phases = new ArrayList<>();
+    private List<Timing> modules = new ArrayList<>();
+    private List<Timing> specs = new ArrayList<>();
+    private List<Timing> slowestModules = new ArrayList<>();
+    private List<Timing> slowestSpecs = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class PhaseMetrics {
+        private Metrics.Phase phase;
+        private long count;
+        private double millis;
+        private long bytes;
+
+        PhaseMetrics(Metrics.Phase phase) {
+            this.phase = phase;
+        }
+
+        void add(long nanos, long bytes) {
+            this.count++;
+            this.millis += millis(nanos);
+            this.bytes += bytes;
+        }
+
+        PhaseMetrics copy() {
+            PhaseMetrics copy = new PhaseMetrics(phase);
+            copy.count = count;
+            copy.millis = millis;
+            copy.bytes = bytes;
+            return copy;
+        }
+    }
+
+    /**
+     * Wall time of one module or spec, count is the number of specs
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Timing {
+        private String name;
+        private double millis;
+        private long bytes;
+        private int count;
+
+        Timing(String name, long nanos, long bytes, int count) {
+            this.name = name;
+            this.millis = millis(nanos);
+            this.bytes = bytes;
+            this.count = count;
+        }
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
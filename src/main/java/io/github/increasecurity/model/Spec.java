@@ -1,5 +1,6 @@
 package io.github.increasecurity.model;
 
+import io.github.increasecurity.content.SpecContent;
 import io.github.increasecurity.model.security.SecurityScheme;
 import lombok.Data;
 
@@ -13,7 +14,9 @@ public class Spec {
     private String location;
     private String version;
     private String info_version;
-    private String content;
+    private SpecContent content;
+    private String codec;
+    private String contentHash;
     private boolean requiresResolution;
     private List<Server> servers = new ArrayList<>();
     private List<SecurityScheme> securitySchemes = new ArrayList<>();
@@ -1,5 +1,15 @@
 package io.github.increasecurity.model.security;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY, property = "type", visible = true)
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ApiKeySecurityScheme.class, name = "apiKey"),
+        @JsonSubTypes.Type(value = HttpSecurityScheme.class, name = "http"),
+        @JsonSubTypes.Type(value = OAuth2SecurityScheme.class, name = "oauth2"),
+        @JsonSubTypes.Type(value = OpenIdConnectSecurityScheme.class, name = "openIdConnect")
+})
 public abstract class SecurityScheme {
     public String type;
     public String description;
@@ -1,140 +1,330 @@
 package io.github.increasecurity.openapi;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.MapperFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.increasecurity.HttpClient;
 import io.github.increasecurity.InspectoorPluginException;
 import io.github.increasecurity.InspectoorUtil;
+import io.github.increasecurity.Mappers;
+import io.github.increasecurity.cache.DocumentCache;
+import io.github.increasecurity.content.ContentEncoder;
+import io.github.increasecurity.cache.SpecCache;
+import io.github.increasecurity.metrics.Metrics;
 import io.github.increasecurity.model.Server;
 import io.github.increasecurity.model.Spec;
 import io.github.increasecurity.model.security.SecurityScheme;
-import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIResolver;
 import io.swagger.v3.parser.OpenAPIV3Parser;
 import io.swagger.v3.parser.core.models.ParseOptions;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import io.swagger.v3.parser.util.InlineModelResolver;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.yaml.snakeyaml.Yaml;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
-public class OpenApiProcessor {
+public class OpenApiProcessor implements AutoCloseable {
 
 
     public static final String SWAGGER_VALUE = "swagger";
     public static final String OPENAPI_VALUE = "openapi";
 
-    public Spec readSpecFile(String sourcePath) {
-        log.info("readSpecFile = " + sourcePath);
-        try {
-            byte[] bytes = readBytes(sourcePath);
-            String filename = extractFilename(sourcePath);
 
-            Spec spec = new Spec();
-            spec.setName(filename);
-            spec.setLocation(sourcePath);
+    private final SpecCache cache;
+    private final DocumentCache documentCache;
+    private final RemoteSpecFetcher remoteFetcher;
+    private final Metrics metrics;
+    private final ContentEncoder encoder;
+    private final Map<String, CompletableFuture<Spec>> processed = new ConcurrentHashMap<>();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final boolean deduplicate;
 
-            boolean hasExternalRefs = containsExternalRefs(bytes);
-            spec.setRequiresResolution(hasExternalRefs);
+    public OpenApiProcessor() {
+        this(null);
+    }
 
+    /**
+     * @param cache local spec files are looked up here first, may be null
+     */
+    public OpenApiProcessor(SpecCache cache) {
+        this(cache, null);
+    }
 
+    /**
+     * @param cache         local spec files are looked up here first, may be null
+     * @param documentCache documents referenced by external $refs are shared between specs through it, may be null
+     */
+    public OpenApiProcessor(SpecCache cache, DocumentCache documentCache) {
+        this(cache, documentCache, new RemoteSpecFetcher(HttpClient.getClient(), null, false));
+    }
 
-            String content = new String(bytes, StandardCharsets.UTF_8);
-            if (sourcePath.endsWith(".json")) {
-                parseJsonSpec(content, spec);
-                if(!hasExternalRefs){
-                    ObjectMapper jsonMapper = new ObjectMapper();
-                    Object jsonObject = jsonMapper.readValue(bytes, Object.class);
+    /**
+     * @param cache         local spec files are looked up here first, may be null
+     * @param documentCache documents referenced by external $refs are shared between specs through it, may be null
+     * @param remoteFetcher fetches the http and https locations
+     */
+    public OpenApiProcessor(SpecCache cache, DocumentCache documentCache, RemoteSpecFetcher remoteFetcher) {
+        this(cache, documentCache, remoteFetcher, new Metrics());
+    }
 
-                    YAMLFactory yamlFactory = new YAMLFactory();
-                    yamlFactory.disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER);
+    /**
+     * @param cache         local spec files are looked up here first, may be null
+     * @param documentCache documents referenced by external $refs are shared between specs through it, may be null
+     * @param remoteFetcher fetches the http and https locations
+     * @param metrics       the time of every spec and of its phases is recorded here
+     */
+    public OpenApiProcessor(SpecCache cache, DocumentCache documentCache, RemoteSpecFetcher remoteFetcher, Metrics metrics) {
+        this(cache, documentCache, remoteFetcher, metrics, new ContentEncoder());
+    }
 
-                    ObjectMapper yamlMapper = new ObjectMapper(yamlFactory);
-                    bytes = yamlMapper.writeValueAsBytes(jsonObject);
-                }
-            } else {
-                parseYamlSpec(content, spec);
-            }
+    /**
+     * @param cache         local spec files are looked up here first, may be null
+     * @param documentCache documents referenced by external $refs are shared between specs through it, may be null
+     * @param remoteFetcher fetches the http and https locations
+     * @param metrics       the time of every spec and of its phases is recorded here
+     * @param encoder       compression and base64 of the spec content
+     */
+    public OpenApiProcessor(SpecCache cache, DocumentCache documentCache, RemoteSpecFetcher remoteFetcher, Metrics metrics, ContentEncoder encoder) {
+        this(cache, documentCache, remoteFetcher, metrics, encoder, true);
+    }
 
-            byte[] openApiContent = hasExternalRefs
-                    ? loadResolvedOpenApiAsYaml(sourcePath).getBytes(StandardCharsets.UTF_8)
-                    : bytes;
+    /**
+     * @param cache         local spec files are looked up here first, may be null
+     * @param documentCache documents referenced by external $refs are shared between specs through it, may be null
+     * @param remoteFetcher fetches the http and https locations
+     * @param metrics       the time of every spec and of its phases is recorded here
+     * @param encoder       compression and base64 of the spec content
+     * @param deduplicate   spec files with the bytes of a file processed before share its result, the
+     *                      results are kept for the lifetime of the processor
+     */
+    public OpenApiProcessor(SpecCache cache, DocumentCache documentCache, RemoteSpecFetcher remoteFetcher, Metrics metrics, ContentEncoder encoder, boolean deduplicate) {
+        this.cache = cache;
+        this.documentCache = documentCache;
+        this.remoteFetcher = remoteFetcher;
+        this.metrics = metrics;
+        this.encoder = encoder;
+        this.deduplicate = deduplicate;
+    }
 
-            byte[] compressed = InspectoorUtil.compress(openApiContent);
-            spec.setContent(Base64.getEncoder().encodeToString(compressed));
+    /**
+     * Deletes the spilled content of the processed specs, call it after they were serialized for the last time
+     */
+    @Override
+    public void close() {
+        encoder.close();
+    }
 
-            return spec;
+    public Spec readSpecFile(String sourcePath) {
+        log.debug("readSpecFile = " + sourcePath);
+        long start = metrics.start();
+        long[] size = new long[1];
+        try {
+            if (cache != null && !isRemote(sourcePath)) {
+                // a cache hit reads no bytes, its size is the size of the file
+                size[0] = Files.size(Paths.get(sourcePath));
+                return cache.get(sourcePath, bytes -> {
+                    size[0] = bytes.length;
+                    return processOnce(sourcePath, bytes);
+                });
+            }
+            byte[] bytes = readBytes(sourcePath);
+            size[0] = bytes.length;
+            return processOnce(sourcePath, bytes);
         } catch (Exception ex) {
             log.warn("Failed to process OpenAPI spec '{}': {}", sourcePath, ex.getMessage());
             log.debug("Stacktrace:", ex);
             return null;
+        } finally {
+            metrics.recordSpec(sourcePath, start, size[0]);
         }
     }
 
-    public String loadResolvedOpenApiAsYaml(String filePath) {
-        OpenAPIV3Parser parser = new OpenAPIV3Parser();
-        ParseOptions options = new ParseOptions();
-        options.setResolve(true);
-        options.setFlatten(true);
-        options.setResolveFully(false);
+    /**
+     * @return the number of spec files whose content was already processed under another location
+     */
+    public int getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * A spec file with the same content as one processed before, e.g. a copy in another module, is not
+     * parsed and compressed again, it shares the result under its own name and location. Specs with
+     * external refs depend on their location and are always processed. The key is the hash of the raw
+     * bytes, a copy which differs only in formatting or line endings is processed again.
+     */
+    private Spec processOnce(String sourcePath, byte[] bytes) throws IOException {
+        if (!deduplicate) {
+            return parseSpec(sourcePath, bytes);
+        }
+        String key = extension(sourcePath) + ":" + InspectoorUtil.sha256(bytes);
+        CompletableFuture<Spec> own = new CompletableFuture<>();
+        CompletableFuture<Spec> first = processed.putIfAbsent(key, own);
+        if (first != null) {
+            Spec spec;
+            try {
+                spec = first.join();
+            } catch (CompletionException e) {
+                return parseSpec(sourcePath, bytes);
+            }
+            if (spec == null || spec.isRequiresResolution()) {
+                return spec == null ? null : parseSpec(sourcePath, bytes);
+            }
+            duplicates.incrementAndGet();
+            log.debug("'{}' has the same content as '{}'", sourcePath, spec.getLocation());
+            return duplicate(spec, sourcePath);
+        }
+        try {
+            Spec spec = parseSpec(sourcePath, bytes);
+            own.complete(spec);
+            return spec;
+        } catch (IOException | RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        }
+    }
 
-        OpenAPI openAPI = parser.read(filePath, null, options);
+    private Spec duplicate(Spec spec, String sourcePath) {
+        Spec copy = new Spec();
+        copy.setType(spec.getType());
+        copy.setName(extractFilename(sourcePath));
+        copy.setLocation(sourcePath);
+        copy.setVersion(spec.getVersion());
+        copy.setInfo_version(spec.getInfo_version());
+        copy.setContent(spec.getContent());
+        copy.setCodec(spec.getCodec());
+        copy.setContentHash(spec.getContentHash());
+        copy.setServers(spec.getServers());
+        copy.setSecuritySchemes(spec.getSecuritySchemes());
+        return copy;
+    }
 
+    private static String extension(String sourcePath) {
+        return sourcePath.substring(sourcePath.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    private Spec parseSpec(String sourcePath, byte[] bytes) throws IOException {
+        long start = metrics.start();
+        boolean json = sourcePath.endsWith(".json");
+        JsonNode root = (json ? Mappers.JSON_READER : Mappers.YAML_READER).readTree(bytes);
+
+        if (!isOpenApiDocument(root)) {
+            log.debug("Skipping '{}', no openapi or swagger key found", sourcePath);
+            return null;
+        }
+        log.info("readSpecFile = " + sourcePath);
+
+        Spec spec = new Spec();
+        spec.setName(extractFilename(sourcePath));
+        spec.setLocation(sourcePath);
+
+        boolean hasExternalRefs = containsExternalRefs(root);
+        spec.setRequiresResolution(hasExternalRefs);
+
+        extractMetadata(root, spec, json);
+        metrics.record(Metrics.Phase.PARSE, start, bytes.length);
+
+        // json specs are stored as yaml, resolved specs as the yaml of the resolved model
+        ContentEncoder.ContentWriter content;
+        if (hasExternalRefs) {
+            start = metrics.start();
+            OpenAPI openAPI = resolve(sourcePath);
+            metrics.record(Metrics.Phase.RESOLVE, start, bytes.length);
+            content = out -> writeResolvedYaml(openAPI, out);
+        } else if (json) {
+            content = out -> Mappers.YAML_WRITER.writeValue(out, root);
+        } else {
+            content = out -> out.write(bytes);
+        }
+
+        start = metrics.start();
+        // the hash is taken from the uncompressed content, json and resolved specs are hashed as yaml
+        MessageDigest digest = InspectoorUtil.sha256Digest();
+        spec.setContent(encoder.encodeToContent(out -> content.writeTo(new DigestOutputStream(out, digest))));
+        spec.setCodec(encoder.getCodec().getName());
+        spec.setContentHash(HexFormat.of().formatHex(digest.digest()));
+        metrics.record(Metrics.Phase.COMPRESS, start, spec.getContent().length());
+
+        return spec;
+    }
+
+    public String loadResolvedOpenApiAsYaml(String filePath) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeResolvedYaml(resolve(filePath), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private OpenAPI resolve(String filePath) {
+        OpenAPI openAPI = readResolved(filePath);
         if (openAPI == null) {
             throw new InspectoorPluginException("OpenAPI can not be parsed: " + filePath);
         }
+        return openAPI;
+    }
 
-        YAMLFactory yamlFactory = new YAMLFactory();
-        yamlFactory.disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER);
-
-        ObjectMapper mapper = JsonMapper.builder(yamlFactory)
-                .serializationInclusion(JsonInclude.Include.NON_NULL)
-                .defaultPropertyInclusion(
-                        JsonInclude.Value.construct(JsonInclude.Include.NON_EMPTY, JsonInclude.Include.NON_NULL)
-                )
-                .disable(MapperFeature.REQUIRE_HANDLERS_FOR_JAVA8_TIMES)
-                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                .enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
-                .addMixIn(Schema.class, IgnoreSwaggerInternalFields.class)
-                .addMixIn(Object.class, IgnoreSwaggerInternalFields.class)
-                .build();
-
+    private void writeResolvedYaml(OpenAPI openAPI, OutputStream out) {
         try {
-            Map<String, Object> map = mapper.convertValue(openAPI, new TypeReference<>() {});
-            removeFieldsRecursively(map, Set.of("style", "explode", "exampleSetFlag", "jsonSchema"));
-            return mapper.writeValueAsString(openAPI);
+            Mappers.OPENAPI_YAML_WRITER.writeValue(out, openAPI);
         } catch (Exception e) {
             log.error("Error in loadResolvedOpenApiAsYaml {}" , e.getMessage());
             throw new InspectoorPluginException("Error during Serialisieration " + e.getMessage());
         }
     }
 
-    private byte[] readBytes(String sourcePath) throws IOException {
-        if (sourcePath.startsWith("http://") || sourcePath.startsWith("https://")) {
-            try (InputStream in = new URL(sourcePath).openStream()) {
-                return in.readAllBytes();
-            }
-        } else {
-            return Files.readAllBytes(Paths.get(sourcePath));
+    private OpenAPI readResolved(String filePath) {
+        OpenAPIV3Parser parser = new OpenAPIV3Parser();
+        ParseOptions options = new ParseOptions();
+        options.setResolve(true);
+        options.setFlatten(true);
+        options.setResolveFully(false);
+
+        if (documentCache == null) {
+            return parser.read(filePath, null, options);
+        }
+
+        // the same steps as parser.read, with the external documents taken from the document cache
+        SwaggerParseResult result = parser.readLocation(filePath, null, new ParseOptions());
+        OpenAPI openAPI = result.getOpenAPI();
+        if (openAPI == null || openAPI.getOpenapi() == null || openAPI.getOpenapi().startsWith("3.1")) {
+            // swagger 2.0 is converted and 3.1 is dereferenced by other parts of the parser
+            return parser.read(filePath, null, options);
+        }
+        OpenAPIResolver resolver = new OpenAPIResolver(openAPI, new ArrayList<>(), filePath, null, options);
+        if (!SharedExternalFiles.attach(resolver.getCache(), filePath, documentCache)) {
+            return parser.read(filePath, null, options);
         }
+        resolver.resolve(result);
+        new InlineModelResolver(options.isFlattenComposedSchemas(), options.isCamelCaseFlattenNaming(), options.isSkipMatches())
+                .flatten(openAPI);
+        return openAPI;
+    }
+
+    private static boolean isRemote(String sourcePath) {
+        return sourcePath.startsWith("http://") || sourcePath.startsWith("https://");
+    }
+
+    private byte[] readBytes(String sourcePath) throws IOException {
+        long start = metrics.start();
+        byte[] bytes = isRemote(sourcePath) ? remoteFetcher.fetch(sourcePath) : Files.readAllBytes(Paths.get(sourcePath));
+        metrics.record(Metrics.Phase.READ, start, bytes.length);
+        return bytes;
     }
 
     private String extractFilename(String path) {
@@ -151,169 +341,138 @@ public class OpenApiProcessor {
         }
     }
 
-    private void parseJsonSpec(String content, Spec spec) {
-        JSONObject json = new JSONObject(content);
-        if (json.has(OPENAPI_VALUE)) {
-            spec.setType("OpenAPI");
-            spec.setVersion(json.getString(OPENAPI_VALUE));
-        } else if (json.has(SWAGGER_VALUE)) {
-            spec.setType(SWAGGER_VALUE);
-            spec.setVersion(json.getString(SWAGGER_VALUE));
-        }
-
-        if (json.has("info")) {
-            JSONObject infoMap = json.getJSONObject("info");
-            spec.setInfo_version(extractInfoVersion(infoMap));
-        }
-
-        List<Server> servers = extractServers(json);
-        spec.getServers().addAll(servers);
-        spec.setSecuritySchemes(extractSecuritySchemes(json.toMap()));
+    /**
+     * A document is treated as a spec as soon as it has a top level openapi or swagger key.
+     */
+    public static boolean isOpenApiDocument(JsonNode root) {
+        return root != null && root.isObject() && (root.has(OPENAPI_VALUE) || root.has(SWAGGER_VALUE));
     }
 
-
-    @SuppressWarnings("unchecked")
-    private void parseYamlSpec(String content, Spec spec) {
-        Yaml yaml = new Yaml();
-        Map<String, Object> yamlMap = yaml.load(content);
-
-        if (yamlMap == null || !yamlMap.containsKey("info")) return;
-
-        LinkedHashMap infoMap = (LinkedHashMap) yamlMap.get("info");
-        spec.setInfo_version(extractInfoVersion(infoMap));
-
-        if (yamlMap.containsKey(OPENAPI_VALUE)) {
-            spec.setType(OPENAPI_VALUE);
-            spec.setVersion(yamlMap.get(OPENAPI_VALUE).toString());
-        } else if (yamlMap.containsKey(SWAGGER_VALUE)) {
+    private void extractMetadata(JsonNode root, Spec spec, boolean json) {
+        if (root.has(OPENAPI_VALUE)) {
+            spec.setType(json ? "OpenAPI" : OPENAPI_VALUE);
+            spec.setVersion(root.get(OPENAPI_VALUE).asText());
+        } else if (root.has(SWAGGER_VALUE)) {
             spec.setType(SWAGGER_VALUE);
-            spec.setVersion(yamlMap.get(SWAGGER_VALUE).toString());
+            spec.setVersion(root.get(SWAGGER_VALUE).asText());
         }
 
-        List<Server> servers = extractServers(yamlMap);
-        spec.getServers().addAll(servers);
-        spec.setSecuritySchemes(extractSecuritySchemes(yamlMap));
+        spec.setInfo_version(extractValue(root.path("info").get("version")));
+        spec.getServers().addAll(extractServers(root, json));
+        spec.setSecuritySchemes(extractSecuritySchemes(root));
     }
 
-
-    private List<SecurityScheme> extractSecuritySchemes(Object root) {
-        Map<String, Object> map = (Map<String, Object>) root;
-
-        Map<String, Object> componentsOrSecurityDefinitions = null;
-
-        if (map.containsKey("components")) {
-            componentsOrSecurityDefinitions = (Map<String, Object>) map.get("components");
-        } else if (map.containsKey("securityDefinitions")) {
-            componentsOrSecurityDefinitions = map; // swagger 2.0
+    private List<SecurityScheme> extractSecuritySchemes(JsonNode root) {
+        JsonNode securityMap = root.path("components").path("securitySchemes");
+        if (securityMap.isMissingNode()) {
+            securityMap = root.path("securityDefinitions"); // swagger 2.0
         }
 
-        if (componentsOrSecurityDefinitions == null) return Collections.emptyList();
-
-        Map<String, Object> securityMap = (Map<String, Object>) (
-                componentsOrSecurityDefinitions.containsKey("securitySchemes")
-                        ? componentsOrSecurityDefinitions.get("securitySchemes")  // OAS 3.x
-                        : componentsOrSecurityDefinitions.get("securityDefinitions")  // Swagger 2.0
-        );
-
-        if (securityMap == null) return Collections.emptyList();
+        if (!securityMap.isObject()) return Collections.emptyList();
 
         List<SecurityScheme> result = new ArrayList<>();
-        for (Map.Entry<String, Object> entry : securityMap.entrySet()) {
-            Map<String, Object> scheme = (Map<String, Object>) entry.getValue();
+        securityMap.properties().forEach(entry -> {
             try {
+                Map<String, Object> scheme = Mappers.MAP_READER.readValue(entry.getValue());
                 result.add(SecuritySchemeFactory.create(scheme));
             } catch (Exception e) {
                 log.warn("Could not parse SecurityScheme: {}", entry.getKey());
             }
-        }
+        });
         return result;
     }
 
-    public boolean containsExternalRefs(byte[] yamlBytes) {
-        String content = new String(yamlBytes, StandardCharsets.UTF_8);
-
-        Pattern pattern = Pattern.compile("(?m)^\\s*(\"\\$ref\"|\\$ref)\\s*[:=]\\s*[\"']?(?!#/)([^\"'\n]+)[\"']?");
-        Matcher matcher = pattern.matcher(content);
-
-        return matcher.find();
+    /**
+     * Streams the tokens of the document and stops at the first $ref which points to another document
+     * @param bytes json or yaml
+     * @return
+     */
+    public boolean containsExternalRefs(byte[] bytes) {
+        try {
+            return !scanExternalRefs(bytes, true).isEmpty();
+        } catch (IOException e) {
+            log.debug("Could not scan for external refs {}", e.getMessage());
+            return false;
+        }
     }
 
-    private String extractInfoVersion(LinkedHashMap infoMap) {
-        if (infoMap == null)
-            return null;
-        return infoMap.get("version").toString();
+    public boolean containsExternalRefs(JsonNode root) throws IOException {
+        try (JsonParser parser = root.traverse()) {
+            return !scanExternalRefs(parser, true).isEmpty();
+        }
     }
 
-    private String extractInfoVersion(JSONObject jsonObject) {
-        if (jsonObject == null)
-            return null;
-        return jsonObject.get("version").toString();
+    /**
+     * @param bytes json or yaml
+     * @return the documents referenced by non local $refs, without fragment, in order of appearance
+     * @throws IOException
+     */
+    public Set<String> findExternalRefs(byte[] bytes) throws IOException {
+        return scanExternalRefs(bytes, false);
     }
 
+    private static Set<String> scanExternalRefs(byte[] bytes, boolean stopAtFirst) throws IOException {
+        if (looksLikeJson(bytes)) {
+            try (JsonParser parser = Mappers.JSON_FACTORY.createParser(bytes)) {
+                return scanExternalRefs(parser, stopAtFirst);
+            } catch (JsonParseException e) {
+                // yaml flow style, the yaml parser handles it
+            }
+        }
+        try (JsonParser parser = Mappers.YAML_FACTORY.createParser(bytes)) {
+            return scanExternalRefs(parser, stopAtFirst);
+        }
+    }
 
-    private List<Server> extractServers(JSONObject json) {
-        List<Server> servers = new ArrayList<>();
-        try {
-            Object serverObject = json.get("servers");
-            if (serverObject != null) {
-                JSONArray jsonArray = (JSONArray) serverObject;
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    Server server = new Server();
-                    JSONObject item = jsonArray.getJSONObject(i);
-                    String url = item.optString("url", "No URL");
-                    server.setUrl(url);
-                    String description = item.optString("description", "No Description");
-                    if (description != null) {
-                        server.setDescription(description);
-                    }
-
-                    servers.add(server);
-                }
-
+    private static Set<String> scanExternalRefs(JsonParser parser, boolean stopAtFirst) throws IOException {
+        Set<String> documents = new LinkedHashSet<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.FIELD_NAME || !"$ref".equals(parser.currentName())) {
+                continue;
+            }
+            if (parser.nextToken() != JsonToken.VALUE_STRING) {
+                continue;
+            }
+            String ref = parser.getText().trim();
+            if (ref.isEmpty() || ref.startsWith("#")) {
+                continue;
+            }
+            int fragment = ref.indexOf('#');
+            documents.add(fragment < 0 ? ref : ref.substring(0, fragment));
+            if (stopAtFirst) {
+                break;
             }
-        } catch (Exception e) {
-            log.error("Error in extractServers {}", e.getMessage());
         }
+        return documents;
+    }
 
-        return servers;
+    private static boolean looksLikeJson(byte[] bytes) {
+        for (byte b : bytes) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{' || b == '[';
+            }
+        }
+        return false;
     }
 
-    private List<Server> extractServers(Map<String, Object> yamlMap) {
+    /**
+     * Json specs have always been sent with placeholders for a missing url or description, yaml specs with null
+     */
+    private List<Server> extractServers(JsonNode root, boolean json) {
         List<Server> servers = new ArrayList<>();
-        Object serversObject = yamlMap.get("servers");
-        if (serversObject != null) {
-            List serverList = (ArrayList) serversObject;
-
-            serverList.forEach(item -> {
-                HashMap map = (HashMap) item;
-                Server server = new Server();
-                server.setUrl(extractValue(map.get("url")));
-                server.setDescription(extractValue(map.get("description")));
-                servers.add(server);
-            });
-
+        for (JsonNode item : root.path("servers")) {
+            Server server = new Server();
+            String url = extractValue(item.get("url"));
+            String description = extractValue(item.get("description"));
+            server.setUrl(url == null && json ? "No URL" : url);
+            server.setDescription(description == null && json ? "No Description" : description);
+            servers.add(server);
         }
-
         return servers;
     }
 
-    private String extractValue(Object url) {
-        return url != null ? url.toString() : null;
-    }
-
-    public static void removeFieldsRecursively(Object obj, Set<String> fieldsToRemove) {
-        if (obj instanceof Map) {
-            Map<String, Object> map = (Map<String, Object>) obj;
-            for (String field : fieldsToRemove) {
-                map.remove(field);
-            }
-            for (Object value : map.values()) {
-                removeFieldsRecursively(value, fieldsToRemove);
-            }
-        } else if (obj instanceof List) {
-            for (Object item : (List<?>) obj) {
-                removeFieldsRecursively(item, fieldsToRemove);
-            }
-        }
+    private String extractValue(JsonNode node) {
+        return node != null && !node.isNull() ? node.asText() : null;
     }
 }
@@ -0,0 +1,159 @@
+package io.github.increasecurity.openapi;
+
+import io.github.increasecurity.InspectoorUtil;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Fetches remote spec files through the shared http client and keeps the last response on disk.
+ * Known specs are requested conditionally with the ETag and Last-Modified of the cached copy, a 304 is
+ * served from disk. In offline mode, or if the host does not answer or fails with a 5xx, the cached copy is used
+ * as well. A 4xx, e.g. for a removed spec, is a failure.
+ */
+@Slf4j
+public class RemoteSpecFetcher {
+
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".properties";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private final OkHttpClient client;
+    private final Path directory;
+    private final boolean offline;
+
+    /**
+     * @param client    timeouts and retries are taken from the client
+     * @param directory cache directory, created on the first fetch, null disables the cache
+     * @param offline   only cached specs are served
+     */
+    public RemoteSpecFetcher(OkHttpClient client, Path directory, boolean offline) {
+        this.client = client;
+        this.directory = directory;
+        this.offline = offline;
+    }
+
+    /**
+     * @param url http or https url of the spec
+     * @return the content of the spec
+     * @throws IOException if the spec could not be fetched and is not cached
+     */
+    public byte[] fetch(String url) throws IOException {
+        String key = InspectoorUtil.sha256(url.getBytes(StandardCharsets.UTF_8));
+        Path body = directory == null ? null : directory.resolve(key + BODY_SUFFIX);
+        Path meta = directory == null ? null : directory.resolve(key + META_SUFFIX);
+        boolean cached = body != null && Files.isRegularFile(body);
+
+        if (offline) {
+            if (!cached) {
+                throw new IOException("Offline and no cached copy of " + url);
+            }
+            log.debug("Offline, serving {} from cache", url);
+            return Files.readAllBytes(body);
+        }
+
+        Request.Builder request = new Request.Builder().url(url).get();
+        if (cached) {
+            Properties properties = readMeta(meta);
+            String etag = properties.getProperty(ETAG);
+            String lastModified = properties.getProperty(LAST_MODIFIED);
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                request.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        Response response;
+        try {
+            response = client.newCall(request.build()).execute();
+        } catch (IOException e) {
+            return fromCache(url, body, cached, e);
+        }
+        try (response) {
+            if (response.code() == 304 && cached) {
+                log.debug("{} not modified, serving from cache", url);
+                return Files.readAllBytes(body);
+            }
+            if (response.code() >= 500) {
+                return fromCache(url, body, cached, new IOException("GET " + url + " failed with Response Code: " + response.code()));
+            }
+            // a 4xx, e.g. a removed spec, is no reason to serve the cached copy
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                throw new IOException("GET " + url + " failed with Response Code: " + response.code());
+            }
+            byte[] content;
+            try {
+                content = responseBody.bytes();
+            } catch (IOException e) {
+                return fromCache(url, body, cached, e);
+            }
+            if (directory != null) {
+                store(body, meta, content, response);
+            }
+            return content;
+        }
+    }
+
+    /**
+     * The cached copy after a transport error or a 5xx of the server
+     */
+    private static byte[] fromCache(String url, Path body, boolean cached, IOException e) throws IOException {
+        if (!cached) {
+            throw e;
+        }
+        log.warn("Could not fetch {} ({}), using the cached copy", url, e.getMessage());
+        return Files.readAllBytes(body);
+    }
+
+    private void store(Path body, Path meta, byte[] content, Response response) {
+        Properties properties = new Properties();
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (etag != null) {
+            properties.setProperty(ETAG, etag);
+        }
+        if (lastModified != null) {
+            properties.setProperty(LAST_MODIFIED, lastModified);
+        }
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, body.getFileName().toString(), ".tmp");
+            Files.write(tmp, content);
+            Files.move(tmp, body, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = Files.createTempFile(directory, meta.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, response.request().url().toString());
+            }
+            Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not cache {} {}", response.request().url(), e.getMessage());
+        }
+    }
+
+    private static Properties readMeta(Path meta) {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(meta)) {
+            try (InputStream in = Files.newInputStream(meta)) {
+                properties.load(in);
+            } catch (IOException e) {
+                log.debug("Could not read {} {}", meta, e.getMessage());
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.increasecurity.openapi;
+
+import io.github.increasecurity.cache.DocumentCache;
+import io.swagger.v3.parser.ResolverCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+
+/**
+ * The external file map of one swagger ResolverCache, backed by the DocumentCache of the build.
+ * swagger-parser keys the files by the ref as written, relative to the root spec, so the keys are
+ * made canonical against the location of the root spec before a document is shared.
+ * swagger-parser has no public hook for the map, it is replaced by reflection. This is checked against the
+ * swagger-parser version of the pom by SharedExternalFilesTest.
+ */
+@Slf4j
+class SharedExternalFiles extends HashMap<String, String> {
+
+    private final transient DocumentCache documents;
+    private final URI base;
+
+    private SharedExternalFiles(DocumentCache documents, URI base) {
+        this.documents = documents;
+        this.base = base;
+    }
+
+    /**
+     * Replaces the private file map of the resolver cache
+     * @param resolverCache
+     * @param location location of the root spec
+     * @param documents
+     * @return false if the map could not be replaced, the spec is then read by the stock parser
+     */
+    static boolean attach(ResolverCache resolverCache, String location, DocumentCache documents) {
+        try {
+            URI base = location.startsWith("http://") || location.startsWith("https://")
+                    ? new URI(location)
+                    : Paths.get(location).toAbsolutePath().normalize().toUri();
+            Field field = ResolverCache.class.getDeclaredField("externalFileCache");
+            field.setAccessible(true);
+            field.set(resolverCache, new SharedExternalFiles(documents, base));
+            return true;
+        } catch (ReflectiveOperationException | URISyntaxException | RuntimeException e) {
+            log.debug("External documents of {} are not shared: {}", location, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String get(Object key) {
+        String content = super.get(key);
+        if (content != null || !(key instanceof String)) {
+            return content;
+        }
+        String uri = canonical((String) key);
+        if (uri != null) {
+            content = documents.get(uri);
+            if (content != null) {
+                super.put((String) key, content);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public String put(String key, String content) {
+        String uri = canonical(key);
+        if (uri != null) {
+            documents.put(uri, content);
+        }
+        return super.put(key, content);
+    }
+
+    /**
+     * @return the absolute, normalized uri of the ref or null if the ref is no valid uri, e.g. a windows path
+     */
+    String canonical(String ref) {
+        try {
+            URI uri = new URI(ref);
+            if (uri.isAbsolute() && uri.getScheme().length() > 1) {
+                return uri.normalize().toString();
+            }
+            return base.resolve(uri).normalize().toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.increasecurity.openapi;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops the internal fields of the swagger models while they are serialized, in the same pass.
+ * Only beans of the swagger model packages are touched, extensions and examples keep all their keys.
+ * style and explode of parameters, headers and encodings are part of the spec and are kept.
+ */
+public class SwaggerInternalFieldsModifier extends BeanSerializerModifier {
+
+    static final Set<String> INTERNAL_FIELDS = Set.of("exampleSetFlag", "types", "jsonSchema");
+    private static final String MODEL_PACKAGE = "io.swagger.v3.oas.models.";
+
+    @Override
+    public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc, List<BeanPropertyWriter> beanProperties) {
+        if (beanDesc.getBeanClass().getName().startsWith(MODEL_PACKAGE)) {
+            beanProperties.removeIf(property -> INTERNAL_FIELDS.contains(property.getName()));
+        }
+        return beanProperties;
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.increasecurity;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Runs the chunked upload against a local stand-in of the /upload endpoint
+ */
+class ChunkedUploaderTest {
+
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    HttpServer server;
+    Map<Integer, byte[]> chunks = new ConcurrentHashMap<>();
+    List<Integer> puts = new CopyOnWriteArrayList<>();
+    Map<String, String> completion = new ConcurrentHashMap<>();
+    AtomicBoolean dropChunkOne = new AtomicBoolean();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/upload/chunks/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        if ("GET".equals(exchange.getRequestMethod())) {
+            int acknowledged = 0;
+            while (chunks.containsKey(acknowledged)) {
+                acknowledged++;
+            }
+            respond(exchange, 200, "{\"acknowledged\": " + acknowledged + "}");
+        } else if ("PUT".equals(exchange.getRequestMethod())) {
+            int index = Integer.parseInt(path[path.length - 1]);
+            puts.add(index);
+            if (index == 1 && dropChunkOne.compareAndSet(true, false)) {
+                // connection drops before the chunk is acknowledged
+                exchange.close();
+                return;
+            }
+            String sha256 = exchange.getRequestHeaders().getFirst(ChunkedUploader.CHUNK_SHA256_HEADER);
+            if (!sha256.equals(sha256(body))) {
+                respond(exchange, 400, "");
+                return;
+            }
+            chunks.put(index, body);
+            respond(exchange, 204, "");
+        } else {
+            for (String field : new String(body, StandardCharsets.UTF_8).split("&")) {
+                String[] pair = field.split("=", 2);
+                completion.put(pair[0], pair[1]);
+            }
+            respond(exchange, 201, "");
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path bom(Path dir) throws IOException {
+        Random random = new Random(42);
+        StringBuilder bom = new StringBuilder("{\"components\":[");
+        for (int i = 0; i < 4000; i++) {
+            bom.append("{\"name\":\"lib-").append(Long.toHexString(random.nextLong())).append("\"},");
+        }
+        bom.append("{}]}");
+        Path file = dir.resolve("bom.json");
+        Files.writeString(file, bom);
+        return file;
+    }
+
+    private byte[] reassemble() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            compressed.write(chunks.get(i));
+        }
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private int upload(Path file) throws IOException {
+        String url = "http://localhost:" + server.getAddress().getPort() + "/upload";
+        FormBody form = new FormBody.Builder().add("system", "demoSystem").build();
+        return new ChunkedUploader(new OkHttpClient.Builder().retryOnConnectionFailure(false).build(), url, "secret", CHUNK_SIZE, 2).upload(file, form);
+    }
+
+    @Test
+    void uploadInChunks(@TempDir Path dir) throws IOException {
+        Path file = bom(dir);
+        Assertions.assertEquals(201, upload(file));
+        Assertions.assertTrue(chunks.size() > 2);
+        Assertions.assertArrayEquals(Files.readAllBytes(file), reassemble());
+        Assertions.assertEquals(String.valueOf(chunks.size()), completion.get("chunks"));
+        Assertions.assertEquals("demoSystem", completion.get("system"));
+        Assertions.assertEquals("gzip", completion.get("encoding"));
+    }
+
+    @Test
+    void uploadResumesAfterAcknowledgedChunk(@TempDir Path dir) throws IOException {
+        Path file = bom(dir);
+        dropChunkOne.set(true);
+        Assertions.assertEquals(201, upload(file));
+        Assertions.assertArrayEquals(Files.readAllBytes(file), reassemble());
+        // chunk 0 is sent once, chunk 1 twice
+        Assertions.assertEquals(1, puts.stream().filter(index -> index == 0).count());
+        Assertions.assertEquals(2, puts.stream().filter(index -> index == 1).count());
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() {
+        OkHttpClient client = new OkHttpClient();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChunkedUploader(client, "http://localhost", "secret", 0, 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChunkedUploader(client, "http://localhost", "secret", -1, 2));
+    }
+}
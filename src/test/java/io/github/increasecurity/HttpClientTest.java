@@ -0,0 +1,192 @@
+package io.github.increasecurity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import io.github.increasecurity.model.Project;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+class HttpClientTest {
+
+    HttpServer server;
+    List<String> bodies = new CopyOnWriteArrayList<>();
+    List<String> encodings = new CopyOnWriteArrayList<>();
+
+    AtomicInteger flakyCalls = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        HttpSettings settings = new HttpSettings();
+        settings.setRetryBaseDelayMillis(10);
+        HttpClient.configure(settings);
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/flaky/projects", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            int call = flakyCalls.incrementAndGet();
+            if (call == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                exchange.sendResponseHeaders(429, -1);
+            } else if (call == 2) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                exchange.sendResponseHeaders(201, -1);
+            }
+            exchange.close();
+        });
+        server.createContext("/broken/projects", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            flakyCalls.incrementAndGet();
+            // the upload arrived, but the connection is lost before the response
+            throw new IOException("connection lost");
+        });
+        server.createContext("/unsupported/projects", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            flakyCalls.incrementAndGet();
+            exchange.sendResponseHeaders(501, -1);
+            exchange.close();
+        });
+        server.createContext("/known/projects", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            // a precondition header on a POST is answered with 412
+            boolean precondition = exchange.getRequestHeaders().containsKey("If-None-Match");
+            boolean known = "digest".equals(exchange.getRequestHeaders().getFirst(HttpClient.DIGEST_HEADER));
+            exchange.sendResponseHeaders(precondition ? 412 : known ? 304 : 201, -1);
+            exchange.close();
+        });
+        server.createContext("/projects", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            encodings.add(String.valueOf(encoding));
+            try (InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                bodies.add(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(201, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    static Project project() {
+        Project project = new Project();
+        project.setName("demo");
+        project.setSystem("demoSystem");
+        project.setVersion("1.0.0");
+        return project;
+    }
+
+    @Test
+    void doPostBatchSendsSpooledProjectsAsArray(@TempDir Path dir) throws IOException {
+        UploadSpool spool = new UploadSpool(dir);
+        Project other = project();
+        other.setName("other");
+        spool.write("a", "1", project());
+        spool.write("b", "2", other);
+
+        int code = HttpClient.doPostBatch(spool.list(), url("/projects/batch"), "secret", true);
+        Assertions.assertEquals(201, code);
+        Assertions.assertEquals(List.of("gzip"), encodings);
+        JsonNode batch = Mappers.JSON_READER.readTree(bodies.get(0));
+        Assertions.assertEquals(2, batch.size());
+        Assertions.assertEquals(Set.of("demo", "other"), Set.of(batch.get(0).get("name").asText(), batch.get(1).get("name").asText()));
+    }
+
+    @Test
+    void doPostRequestStreamsJson() {
+        Project project = project();
+        AtomicLong sent = new AtomicLong();
+        int code = HttpClient.doPostRequest(project, url("/projects"), "secret", "digest", false, sent::set);
+        Assertions.assertEquals(201, code);
+        Assertions.assertEquals(List.of(InspectoorUtil.toJson(project)), bodies);
+        Assertions.assertEquals(List.of("null"), encodings);
+        Assertions.assertEquals(bodies.get(0).getBytes(StandardCharsets.UTF_8).length, sent.get());
+    }
+
+    @Test
+    void doPostRequestSendsTheDigestWithoutPrecondition() {
+        int code = HttpClient.doPostRequest(project(), url("/known/projects"), "secret", "digest", false);
+        Assertions.assertEquals(UploadOutcome.UNCHANGED, UploadOutcome.fromStatusCode(code));
+    }
+
+    @Test
+    void doPostRequestRetriesTransientErrors() {
+        int code = HttpClient.doPostRequest(project(), url("/flaky/projects"), "secret", "digest", false);
+        Assertions.assertEquals(201, code);
+        Assertions.assertEquals(3, flakyCalls.get());
+    }
+
+    @Test
+    void doPostRequestGivesUpAfterMaxRetries() {
+        HttpSettings settings = new HttpSettings();
+        settings.setRetryBaseDelayMillis(10);
+        settings.setMaxRetries(1);
+        HttpClient.configure(settings);
+
+        int code = HttpClient.doPostRequest(project(), url("/flaky/projects"), "secret", "digest", false);
+        Assertions.assertEquals(503, code);
+        Assertions.assertEquals(2, flakyCalls.get());
+    }
+
+    @Test
+    void doPostRequestIsNotRetriedAfterItWasSent() {
+        int code = HttpClient.doPostRequest(project(), url("/broken/projects"), "secret", "digest", false);
+        Assertions.assertEquals(-1, code);
+        Assertions.assertEquals(1, flakyCalls.get());
+    }
+
+    @Test
+    void notImplementedIsNotRetried() {
+        int code = HttpClient.doPostRequest(project(), url("/unsupported/projects"), "secret", "digest", false);
+        Assertions.assertEquals(501, code);
+        Assertions.assertEquals(1, flakyCalls.get());
+    }
+
+    @Test
+    void ioErrorsAreRetriedForIdempotentMethodsOrIfNothingWasSent() {
+        Assertions.assertTrue(RetryInterceptor.isIdempotent("GET"));
+        Assertions.assertFalse(RetryInterceptor.isIdempotent("POST"));
+        Assertions.assertTrue(RetryInterceptor.isNotSent(new ConnectException("refused")));
+        Assertions.assertFalse(RetryInterceptor.isNotSent(new IOException("unexpected end of stream")));
+    }
+
+    @Test
+    void retryAfter() {
+        Assertions.assertEquals(2000, RetryInterceptor.retryAfter("2"));
+        Assertions.assertEquals(-1, RetryInterceptor.retryAfter(null));
+        Assertions.assertEquals(-1, RetryInterceptor.retryAfter("soon"));
+        Assertions.assertEquals(0, RetryInterceptor.retryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+
+    @Test
+    void doPostRequestGzip() {
+        Project project = project();
+        int code = HttpClient.doPostRequest(project, url("/projects"), "secret", "digest", true);
+        Assertions.assertEquals(201, code);
+        Assertions.assertEquals(List.of(InspectoorUtil.toJson(project)), bodies);
+        Assertions.assertEquals(List.of("gzip"), encodings);
+    }
+}
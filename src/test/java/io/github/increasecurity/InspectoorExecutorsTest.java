@@ -0,0 +1,32 @@
+package io.github.increasecurity;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+class InspectoorExecutorsTest {
+
+    @Test
+    void virtualThreadsAreAvailableFromJava21() {
+        Assertions.assertEquals(Runtime.version().feature() >= 21, InspectoorExecutors.virtualThreadsAvailable());
+    }
+
+    @Test
+    void newExecutorRunsTasksInEitherMode() {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            ExecutorService executor = InspectoorExecutors.newExecutor(virtualThreads, 2);
+            try {
+                List<CompletableFuture<Integer>> tasks = IntStream.range(0, 100)
+                        .mapToObj(i -> CompletableFuture.supplyAsync(() -> i * 2, executor))
+                        .toList();
+                Assertions.assertEquals(9900, tasks.stream().mapToInt(CompletableFuture::join).sum());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
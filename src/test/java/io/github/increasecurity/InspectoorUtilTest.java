@@ -1,11 +1,19 @@
 package io.github.increasecurity;
 
+import io.github.increasecurity.model.Project;
 import io.github.increasecurity.model.Spec;
+import io.github.increasecurity.openapi.OpenApiProcessor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 class InspectoorUtilTest {
 
@@ -25,7 +33,45 @@ class InspectoorUtilTest {
         apiFiles.add(SPEC_FILE4);
         apiFiles.add(SPEC_FILE5);
         List<Spec> specs = InspectoorUtil.readSpecFiles(apiFiles);
-        Assertions.assertFalse(specs.isEmpty());
+        Assertions.assertEquals(apiFiles.size(), specs.size());
+    }
+
+    @Test
+    void readSpecFilesAsyncKeepsOrder() {
+        List<String> apiFiles = List.of(SPEC_FILE1, SPEC_FILE2, SPEC_FILE3, SPEC_FILE4, SPEC_FILE5);
+        List<Spec> sequential = InspectoorUtil.readSpecFiles(apiFiles);
+        ExecutorService executor = InspectoorExecutors.newBoundedExecutor(4);
+        try {
+            List<Spec> parallel = InspectoorUtil.readSpecFilesAsync(apiFiles, new OpenApiProcessor(), executor).join();
+            Assertions.assertEquals(toJson(sequential), toJson(parallel));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String toJson(List<Spec> specs) {
+        Project project = new Project();
+        project.setSpecs(specs);
+        return InspectoorUtil.toJson(project);
+    }
+
+    @Test
+    void omitDuplicateContentKeepsTheFirstSpec() {
+        Spec first = new OpenApiProcessor().readSpecFile(SPEC_FILE1);
+        Spec copy = new Spec();
+        copy.setContent(first.getContent());
+        copy.setContentHash(first.getContentHash());
+        Project module = new Project();
+        module.getSpecs().add(copy);
+        Project root = new Project();
+        root.getSpecs().add(first);
+        root.getSpecs().add(new OpenApiProcessor().readSpecFile(SPEC_FILE2));
+        root.getProjects().add(module);
+
+        Assertions.assertEquals(1, InspectoorUtil.omitDuplicateContent(root));
+        Assertions.assertNotNull(first.getContent());
+        Assertions.assertNull(copy.getContent());
+        Assertions.assertTrue(InspectoorUtil.toJson(root).contains("\"contentHash\":\"" + first.getContentHash() + "\""));
     }
 
     @Test
@@ -36,6 +82,55 @@ class InspectoorUtilTest {
         Assertions.assertFalse(specs.isEmpty());
     }
 
+    @Test
+    void findOpenApiFiles(@TempDir Path srcMain) throws IOException {
+        Path resources = Files.createDirectories(srcMain.resolve("resources"));
+        Files.copy(Path.of(SPEC_FILE1), resources.resolve("api.yaml"));
+        Files.copy(Path.of(SPEC_FILE4), srcMain.resolve("petstore3.json"));
+        Files.writeString(resources.resolve("messages.json"), "{\"greeting\": \"hello\"}");
+        Path nodeModules = Files.createDirectories(srcMain.resolve("frontend/node_modules/lib"));
+        Files.copy(Path.of(SPEC_FILE1), nodeModules.resolve("api.yaml"));
+
+        List<String> files = InspectoorUtil.findOpenApiFiles(srcMain.toString());
+        Assertions.assertEquals(2, files.size());
+        Assertions.assertTrue(files.contains(resources.resolve("api.yaml").toString()));
+        Assertions.assertTrue(files.contains(srcMain.resolve("petstore3.json").toString()));
+
+        SpecFileWalker smallFilesOnly = new SpecFileWalker(List.of("**/*.yaml"), List.of(), 10, 0);
+        Assertions.assertTrue(InspectoorUtil.findOpenApiFiles(srcMain.toString(), smallFilesOnly).isEmpty());
+    }
+
+    @Test
+    void findOpenApiFilesBeyondTheSniffedHeader(@TempDir Path srcMain) throws IOException {
+        // key sorted like jq -S, a large components block comes before openapi
+        StringBuilder components = new StringBuilder("{\"schemas\":{");
+        for (int i = 0; i < 500; i++) {
+            components.append(i == 0 ? "" : ",").append("\"Schema").append(i).append("\":{\"type\":\"string\"}");
+        }
+        components.append("}}");
+        Files.writeString(srcMain.resolve("sorted.json"), "{\"components\":" + components + ",\"info\":{\"title\":\"sorted\",\"version\":\"1\"},\"openapi\":\"3.0.3\",\"paths\":{}}");
+        Files.writeString(srcMain.resolve("messages.json"), "{\"greeting\": \"hello\"}");
+        Files.writeString(srcMain.resolve("list.json"), "[" + "\"x\",".repeat(5000) + "\"x\"]");
+
+        List<String> files = InspectoorUtil.findOpenApiFiles(srcMain.toString());
+
+        Assertions.assertEquals(List.of(srcMain.resolve("sorted.json").toString()), files);
+        Assertions.assertNotNull(new OpenApiProcessor().readSpecFile(files.get(0)));
+
+        byte[] yaml = "components:\n  schemas:\n    Pet:\n      type: object\n".getBytes(StandardCharsets.UTF_8);
+        Assertions.assertTrue(SpecFileWalker.hasSpecKey(yaml, false, Mappers.YAML_FACTORY));
+        Assertions.assertFalse(SpecFileWalker.hasSpecKey(yaml, true, Mappers.YAML_FACTORY));
+    }
+
+    @Test
+    void sbomDigestIgnoresTimestamp(@TempDir Path dir) throws IOException {
+        Path first = dir.resolve("first.json");
+        Path second = dir.resolve("second.json");
+        Files.writeString(first, "{\"bomFormat\":\"CycloneDX\",\"metadata\":{\"timestamp\":\"2024-01-01T00:00:00Z\"},\"components\":[]}");
+        Files.writeString(second, "{\"bomFormat\":\"CycloneDX\",\"metadata\":{\"timestamp\":\"2024-06-01T00:00:00Z\"},\"components\":[]}");
+        Assertions.assertEquals(InspectoorUtil.sbomDigest(first.toString()), InspectoorUtil.sbomDigest(second.toString()));
+    }
+
     @Test
     void readSpecFilesNotFound() {
         List<String> apiFiles = new ArrayList<>();
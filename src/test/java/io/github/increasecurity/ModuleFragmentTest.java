@@ -0,0 +1,125 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.content.SpecContent;
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.model.Project;
+import io.github.increasecurity.model.Spec;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+class ModuleFragmentTest {
+
+    @TempDir
+    Path root;
+
+    private static Spec spec(String location, String content) {
+        Spec spec = new Spec();
+        spec.setName("Petstore");
+        spec.setLocation(location);
+        spec.setContent(content == null ? null : SpecContent.of(content));
+        return spec;
+    }
+
+    @Test
+    void fragmentIsRestoredIntoAnotherDirectory() throws IOException {
+        Path basedir = root.resolve("checkout/orders");
+        Path directory = basedir.resolve("target/inspectoor");
+        Spec local = spec(basedir.resolve("src/main/resources/petstore.yaml").toString(), "H4sIAAAA");
+        Spec remote = spec("https://example.com/openapi.yaml", null);
+
+        ModuleFragment written = ModuleFragment.write(directory, basedir, "1.2.1+gzip", "com.example:orders", List.of(local, remote));
+
+        Assertions.assertEquals(List.of("src/main/resources/petstore.yaml"), written.getInputs().stream().map(ModuleFragment.Input::getPath).toList());
+        Assertions.assertEquals(List.of("0.content"), written.getOutputs());
+        Assertions.assertFalse(Files.readString(directory.resolve(ModuleFragment.FILE)).contains(basedir.toString()));
+
+        // e.g. restored by a build cache into another checkout
+        Path movedBasedir = root.resolve("other/orders");
+        Path movedDirectory = movedBasedir.resolve("target/inspectoor");
+        Files.createDirectories(movedDirectory.getParent());
+        Files.move(directory, movedDirectory);
+
+        ModuleFragment read = ModuleFragment.read(movedDirectory, movedBasedir);
+
+        Assertions.assertEquals("1.2.1+gzip", read.getVersion());
+        Assertions.assertEquals(movedBasedir.resolve("src/main/resources/petstore.yaml").toString(), read.getSpecs().get(0).getLocation());
+        Assertions.assertEquals(movedDirectory.resolve("0.content"), read.getSpecs().get(0).getContent().getFile());
+        Assertions.assertEquals("H4sIAAAA", read.getSpecs().get(0).getContent().asString());
+        Assertions.assertEquals("https://example.com/openapi.yaml", read.getSpecs().get(1).getLocation());
+        Assertions.assertNull(read.getSpecs().get(1).getContent());
+    }
+
+    @Test
+    void writeReplacesThePreviousFragment() throws IOException {
+        Path directory = root.resolve("target/inspectoor");
+        ModuleFragment.write(directory, root, "v", "g:a", List.of(spec(root.resolve("a.yaml").toString(), "a"), spec(root.resolve("b.yaml").toString(), "b")));
+        ModuleFragment.write(directory, root, "v", "g:a", List.of(spec(root.resolve("a.yaml").toString(), "a")));
+
+        Assertions.assertFalse(Files.exists(directory.resolve("1.content")));
+        Assertions.assertEquals(1, ModuleFragment.read(directory, root).getSpecs().size());
+        Assertions.assertNull(ModuleFragment.read(root.resolve("missing"), root));
+    }
+
+    @Test
+    void changedInputsAreDetected() throws IOException {
+        Path directory = root.resolve("target/inspectoor");
+        Path edited = Files.writeString(root.resolve("a.yaml"), "openapi: 3.0.3");
+        Path deleted = Files.writeString(root.resolve("b.yaml"), "openapi: 3.0.3");
+        Files.writeString(root.resolve("c.yaml"), "openapi: 3.0.3");
+        ModuleFragment.write(directory, root, "v", "g:a", List.of(spec(edited.toString(), "a"), spec(deleted.toString(), "b"), spec(root.resolve("c.yaml").toString(), "c")));
+        Assertions.assertEquals(List.of(), ModuleFragment.read(directory, root).changedInputs(root));
+
+        Files.writeString(edited, "openapi: 3.1.0");
+        Files.delete(deleted);
+
+        Assertions.assertEquals(List.of("a.yaml", "b.yaml"), ModuleFragment.read(directory, root).changedInputs(root));
+    }
+
+    @Test
+    void addedSpecFileMakesTheFragmentStale() throws IOException {
+        MavenProject orders = PomReaderTest.module(root.resolve("orders"), "Order Service");
+        Path basedir = orders.getBasedir().toPath();
+        Path resources = Files.createDirectories(basedir.resolve("src/main/resources"));
+        Files.copy(Path.of("src/test/resources/specfiles/petstore.yaml"), resources.resolve("petstore.yaml"));
+        SpecsFinder specsFinder = new SpecsFinder();
+        List<String> candidates = specsFinder.findModuleSpecFiles(orders);
+        ModuleFragment.write(basedir.resolve("target/inspectoor"), basedir, "v", "g:orders", candidates, specsFinder.readSpecs(candidates));
+
+        ModuleFragment fragment = ModuleFragment.read(basedir.resolve("target/inspectoor"), basedir);
+        Assertions.assertEquals(List.of("src/main/resources/petstore.yaml"), fragment.getCandidates());
+        Assertions.assertFalse(fragment.candidatesChanged(basedir, specsFinder.findModuleSpecFiles(orders)));
+
+        Files.copy(Path.of("src/test/resources/specfiles/petstore3.json"), resources.resolve("petstore3.json"));
+
+        Assertions.assertTrue(fragment.candidatesChanged(basedir, specsFinder.findModuleSpecFiles(orders)));
+        Assertions.assertEquals(List.of(), fragment.changedInputs(basedir));
+    }
+
+    @Test
+    void moduleTreeIsBuiltFromTheFragments() throws IOException {
+        MavenProject parent = PomReaderTest.module(root, "Parent", "orders");
+        MavenProject orders = PomReaderTest.module(root.resolve("orders"), "Order Service");
+        Path directory = orders.getBasedir().toPath().resolve("target/inspectoor");
+        ModuleFragment.write(directory, orders.getBasedir().toPath(), "v", "g:orders", List.of(spec(orders.getBasedir().toPath().resolve("api.yaml").toString(), "x")));
+
+        Project project = new PomReader(module -> {
+            try {
+                ModuleFragment fragment = ModuleFragment.read(module.getBasedir().toPath().resolve("target/inspectoor"), module.getBasedir().toPath());
+                return CompletableFuture.completedFuture(fragment == null ? List.of() : fragment.getSpecs());
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }, new Metrics()).readPom(parent, null, List.of(parent, orders), "saas", "ou", "system", "tag", "1.0");
+
+        Assertions.assertTrue(project.getSpecs().isEmpty());
+        Assertions.assertEquals("api.yaml", Path.of(project.getProjects().get(0).getSpecs().get(0).getLocation()).getFileName().toString());
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.model.Project;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class PomReaderTest {
+
+    @TempDir
+    Path root;
+
+    static MavenProject module(Path dir, String name, String... modules) throws IOException {
+        Files.createDirectories(dir.resolve("src/main"));
+        Path pom = Files.writeString(dir.resolve("pom.xml"), "<project/>");
+        Model model = new Model();
+        model.setName(name);
+        model.setModules(List.of(modules));
+        MavenProject project = new MavenProject(model);
+        model.setPomFile(pom.toFile());
+        project.setFile(pom.toFile());
+        return project;
+    }
+
+    @Test
+    void moduleTreeIsBuiltFromTheBasedirs() throws IOException {
+        Files.copy(Path.of("src/test/resources/specfiles/petstore.yaml"), Files.createDirectories(root.resolve("services/orders/src/main/resources")).resolve("petstore.yaml"));
+        MavenProject parent = module(root, "Parent", "libs/common/pom.xml", "services", "missing");
+        // the names differ from the module directories
+        MavenProject services = module(root.resolve("services"), "Services", "orders", "../libs/common");
+        MavenProject orders = module(root.resolve("services/orders"), "Order Service");
+        MavenProject common = module(root.resolve("libs/common"), "Common Library");
+        List<MavenProject> reactor = List.of(parent, services, orders, common);
+
+        Project project = new PomReader().readPom(parent, null, reactor, "saas", "ou", "system", "tag", "1.0");
+
+        Assertions.assertEquals(List.of("Common Library", "Services"), project.getProjects().stream().map(Project::getName).toList());
+        Project servicesProject = project.getProjects().get(1);
+        // common is listed by two modules and read once
+        Assertions.assertEquals(List.of("Order Service"), servicesProject.getProjects().stream().map(Project::getName).toList());
+        Assertions.assertEquals(1, servicesProject.getProjects().get(0).getSpecs().size());
+    }
+
+    @Test
+    void missingModuleDirectoryIsNotTakenForItsParent() throws IOException {
+        MavenProject parent = module(root, "Parent", "services");
+        // an entry for a missing directory is not resolved to the module it would be in
+        MavenProject services = module(root.resolve("services"), "Services", "missing");
+        MavenProject other = module(root.resolve("other"), "Other", "../services/missing");
+
+        Project project = new PomReader().readPom(other, null, List.of(parent, services, other), "saas", "ou", "system", "tag", "1.0");
+
+        Assertions.assertTrue(project.getProjects().isEmpty());
+    }
+
+    @Test
+    void moduleTimeStartsWhenTheExecutorRunsIt() throws IOException {
+        MavenProject parent = module(root, "Parent", "orders");
+        MavenProject orders = module(root.resolve("orders"), "Order Service");
+        List<String> startedOn = new CopyOnWriteArrayList<>();
+        Metrics metrics = new Metrics() {
+            @Override
+            public long start() {
+                startedOn.add(Thread.currentThread().getName());
+                return super.start();
+            }
+        };
+        ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "module-worker"));
+        try {
+            new PomReader(module -> CompletableFuture.completedFuture(List.of()), worker, metrics)
+                    .readPom(parent, null, List.of(parent, orders), "saas", "ou", "system", "tag", "1.0");
+        } finally {
+            worker.shutdownNow();
+        }
+
+        // not on the maven thread which queued the modules
+        Assertions.assertEquals(List.of("module-worker", "module-worker"), startedOn);
+        Assertions.assertEquals(2, metrics.report(2).getModules().size());
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.increasecurity;
+
+import io.github.increasecurity.model.Project;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+class UploadSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    static Project project(String version) {
+        Project project = new Project();
+        project.setName("demo");
+        project.setVersion(version);
+        return project;
+    }
+
+    @Test
+    void newerPayloadOfTheSameKeyReplacesTheSpooledOne() throws IOException {
+        UploadSpool spool = new UploadSpool(dir.resolve("spool"));
+        Assertions.assertTrue(spool.list().isEmpty());
+
+        String key = UploadState.key("http://backend", "sys", "1.0", "project");
+        Path first = spool.write(key, "d1", project("1.0"));
+        Path second = spool.write(key, "d2", project("1.0-changed"));
+        spool.write(UploadState.key("http://backend", "sys", "2.0", "project"), "d3", project("2.0"));
+
+        Assertions.assertFalse(Files.exists(first));
+        Assertions.assertEquals(2, spool.list().size());
+        Assertions.assertTrue(Files.readString(second).contains("1.0-changed"));
+        Assertions.assertEquals(key, spool.keyOf(second));
+        Assertions.assertEquals("d2", UploadSpool.digestOf(second));
+    }
+
+    @Test
+    void payloadWrittenDuringTheUploadIsKept() throws IOException {
+        UploadSpool spool = new UploadSpool(dir.resolve("spool"));
+        String key = UploadState.key("http://backend", "sys", "1.0", "project");
+        spool.write(key, "d1", project("1.0"));
+        List<Path> claimed = spool.claim(spool.list());
+        Assertions.assertEquals(1, claimed.size());
+        Assertions.assertTrue(spool.list().isEmpty());
+
+        // a build replaces the payload while its batch is in flight
+        Path newer = spool.write(key, "d2", project("1.0-changed"));
+        Assertions.assertTrue(Files.exists(claimed.get(0)));
+        Assertions.assertEquals("d1", UploadSpool.digestOf(claimed.get(0)));
+        Assertions.assertEquals(key, spool.keyOf(claimed.get(0)));
+
+        spool.delete(claimed);
+        Assertions.assertEquals(List.of(newer), spool.list());
+        Assertions.assertEquals(key, spool.keyOf(newer));
+
+        spool.delete(spool.claim(spool.list()));
+        try (Stream<Path> files = Files.list(spool.getDirectory())) {
+            Assertions.assertEquals(List.of(), files.toList());
+        }
+    }
+
+    @Test
+    void failedUploadReleasesTheClaim() throws IOException {
+        UploadSpool spool = new UploadSpool(dir.resolve("spool"));
+        Path payload = spool.write("a", "d1", project("1.0"));
+        spool.write("b", "d2", project("2.0"));
+        List<Path> claimed = spool.claim(spool.list());
+
+        Path newer = spool.write("b", "d3", project("2.0-changed"));
+        spool.release(claimed);
+
+        // the older payload of b is superseded by the one written during the upload
+        Assertions.assertEquals(Set.of(payload, newer), Set.copyOf(spool.list()));
+    }
+
+    @Test
+    void batchesKeepTheOrder() {
+        List<Path> payloads = List.of(Path.of("a"), Path.of("b"), Path.of("c"), Path.of("d"), Path.of("e"));
+        List<List<Path>> batches = UploadSpool.batches(payloads, 2);
+        Assertions.assertEquals(List.of(List.of(Path.of("a"), Path.of("b")), List.of(Path.of("c"), Path.of("d")), List.of(Path.of("e"))), batches);
+        Assertions.assertEquals(5, UploadSpool.batches(payloads, 0).size());
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.increasecurity.cache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DocumentCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        DocumentCache cache = new DocumentCache(10);
+        cache.put("file:/a.yaml", "aaaa");
+        cache.put("file:/b.yaml", "bbbb");
+        Assertions.assertEquals("aaaa", cache.get("file:/a.yaml"));
+
+        cache.put("file:/c.yaml", "cccc");
+        Assertions.assertNull(cache.get("file:/b.yaml"));
+        Assertions.assertEquals("aaaa", cache.get("file:/a.yaml"));
+        Assertions.assertEquals("cccc", cache.get("file:/c.yaml"));
+        Assertions.assertEquals(3, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void skipsDocumentsAboveMaxSize() {
+        DocumentCache cache = new DocumentCache(3);
+        cache.put("file:/a.yaml", "aaaa");
+        Assertions.assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.increasecurity.cache;
+
+import io.github.increasecurity.model.Spec;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SpecCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    Path cacheDir;
+    Path specFile;
+    AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cacheDir = tempDir.resolve("cache");
+        specFile = tempDir.resolve("petstore.yaml");
+        Files.writeString(specFile, """
+                openapi: 3.0.3
+                info:
+                  title: Swagger Petstore
+                  version: 1.0.0
+                servers:
+                  - url: https://petstore.example.com
+                components:
+                  securitySchemes:
+                    api_key:
+                      type: apiKey
+                      name: api_key
+                      in: header
+                """);
+    }
+
+    private Spec read(SpecCache cache) throws IOException {
+        OpenApiProcessor processor = new OpenApiProcessor();
+        return cache.get(specFile.toString(), bytes -> {
+            loads.incrementAndGet();
+            return processor.readSpecFile(specFile.toString());
+        });
+    }
+
+    @Test
+    void unchangedSpecIsServedFromCache() throws IOException {
+        SpecCache cache = SpecCache.open(cacheDir, "1.0", SpecCache.DEFAULT_MAX_SIZE);
+        Spec first = read(cache);
+        cache.save();
+
+        SpecCache reopened = SpecCache.open(cacheDir, "1.0", SpecCache.DEFAULT_MAX_SIZE);
+        Spec second = read(reopened);
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals(1, reopened.getHits());
+        Assertions.assertEquals(first.getContent().asString(), second.getContent().asString());
+        Assertions.assertNotNull(second.getContent().getFile());
+        Assertions.assertEquals(first.getVersion(), second.getVersion());
+        Assertions.assertEquals(first.getLocation(), second.getLocation());
+        Assertions.assertEquals(first.getSecuritySchemes().size(), second.getSecuritySchemes().size());
+
+        Files.setLastModifiedTime(specFile, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        read(reopened);
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changedSpecIsReloaded() throws IOException {
+        SpecCache cache = SpecCache.open(cacheDir, "1.0", SpecCache.DEFAULT_MAX_SIZE);
+        read(cache);
+        Files.writeString(specFile, Files.readString(specFile).replace("Swagger Petstore", "Petstore"));
+        read(cache);
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void newPluginVersionDiscardsCache() throws IOException {
+        SpecCache cache = SpecCache.open(cacheDir, "1.0", SpecCache.DEFAULT_MAX_SIZE);
+        read(cache);
+        cache.save();
+
+        read(SpecCache.open(cacheDir, "1.1", SpecCache.DEFAULT_MAX_SIZE));
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void saveEvictsAboveMaxSize() throws IOException {
+        SpecCache cache = SpecCache.open(cacheDir, "1.0", 1);
+        read(cache);
+        cache.save();
+
+        read(SpecCache.open(cacheDir, "1.0", 1));
+        Assertions.assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.increasecurity.content;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.increasecurity.InspectoorUtil;
+import io.github.increasecurity.Mappers;
+import io.github.increasecurity.model.Project;
+import io.github.increasecurity.model.Spec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+class ContentEncoderTest {
+
+    static byte[] content(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+    static byte[] decode(String encoded) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Test
+    void encodeToStringMatchesCompress() throws IOException {
+        byte[] bytes = "openapi: 3.0.1\ninfo:\n  title: demo\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+        String encoded = new ContentEncoder().encodeToString(out -> out.write(bytes));
+        Assertions.assertEquals(Base64.getEncoder().encodeToString(InspectoorUtil.compress(bytes)), encoded);
+    }
+
+    @Test
+    void encodeSpillsAboveThreshold() throws IOException {
+        byte[] bytes = content(256 * 1024);
+        SpillBuffer buffer = new ContentEncoder(1, 1024, 16 * 1024, null).encode(out -> out.write(bytes));
+        try {
+            Assertions.assertTrue(buffer.isSpilled());
+            Path file = buffer.getFile();
+            Assertions.assertEquals(buffer.size(), Files.size(file));
+            Assertions.assertArrayEquals(bytes, decode(buffer.toString(StandardCharsets.ISO_8859_1)));
+        } finally {
+            buffer.delete();
+        }
+        Assertions.assertFalse(Files.exists(buffer.getFile()));
+    }
+
+    @Test
+    void spilledContentIsStreamedIntoThePayload(@TempDir Path spool) throws IOException {
+        byte[] bytes = content(256 * 1024);
+        ContentEncoder encoder = new ContentEncoder(1, 1024, 16 * 1024, spool);
+        SpecContent content = encoder.encodeToContent(out -> out.write(bytes));
+        Assertions.assertEquals(spool, content.getFile().getParent());
+
+        Spec spec = new Spec();
+        spec.setContent(content);
+        Project project = new Project();
+        project.getSpecs().add(spec);
+        JsonNode payload = Mappers.JSON_READER.readTree(InspectoorUtil.toJson(project));
+        Assertions.assertArrayEquals(bytes, decode(payload.at("/specs/0/content").asText()));
+
+        encoder.close();
+        Assertions.assertFalse(Files.exists(content.getFile()));
+    }
+
+    @Test
+    void encodeDeletesTempFileOnFailure(@TempDir Path spool) throws IOException {
+        ContentEncoder encoder = new ContentEncoder(1, 1024, 1024, spool);
+        Assertions.assertThrows(IOException.class, () -> encoder.encode(out -> {
+            out.write(content(64 * 1024));
+            throw new IOException("broken");
+        }));
+        try (Stream<Path> files = Files.list(spool)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void rejectsInvalidLevel() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ContentEncoder(10, 1024, 1024, null));
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.increasecurity.content;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+class SpecCodecsTest {
+
+    static final byte[] SPEC = """
+            openapi: 3.0.1
+            info:
+              title: demo
+              version: 1.0.0
+            paths:
+              /pets:
+                get:
+                  responses:
+                    '200':
+                      description: OK
+            """.repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    static byte[] decodeZstd(String encoded, byte[] dictionary) throws IOException {
+        try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded)))) {
+            if (dictionary != null) {
+                in.setDict(dictionary);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    static String encode(SpecCodec codec) throws IOException {
+        return new ContentEncoder(codec, 1024, 1024 * 1024, null).encodeToString(out -> out.write(SPEC));
+    }
+
+    @Test
+    void zstdRoundTrip() throws IOException {
+        SpecCodec codec = SpecCodecs.create("zstd", -1, null);
+        Assertions.assertEquals("zstd", codec.getName());
+        Assertions.assertArrayEquals(SPEC, decodeZstd(encode(codec), null));
+    }
+
+    @Test
+    void zstdWithDictionaryRoundTrip(@TempDir Path dir) throws IOException {
+        byte[] dictionary = "openapi: 3.0.1\ninfo:\n  title: \n  version: \npaths:\n".getBytes(StandardCharsets.UTF_8);
+        Path file = Files.write(dir.resolve("openapi.dict"), dictionary);
+        SpecCodec codec = SpecCodecs.create("zstd", 19, file);
+        Assertions.assertTrue(codec.getName().startsWith(ZstdCodec.DICTIONARY_NAME + ":"));
+        Assertions.assertArrayEquals(SPEC, decodeZstd(encode(codec), dictionary));
+    }
+
+    @Test
+    void gzipIsTheDefault() throws IOException {
+        Assertions.assertEquals("gzip", new ContentEncoder().getCodec().getName());
+        Assertions.assertEquals("gzip", SpecCodecs.create("GZIP", 9, null).getName());
+        Assertions.assertEquals(9, SpecCodecs.create("GZIP", 9, null).getLevel());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration(@TempDir Path dir) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpecCodecs.create("brotli", -1, null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpecCodecs.create("gzip", -1, dir.resolve("openapi.dict")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpecCodecs.create("zstd", 23, null));
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.increasecurity.locator;
+
+import io.github.increasecurity.SpecsFinder;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.List;
+
+class SpecLocatorsTest {
+
+    static final String BUILD_DIRECTORY = Path.of("app", "target").toString();
+
+    MavenProject project = project();
+
+    static MavenProject project() {
+        Model model = new Model();
+        Build build = new Build();
+        build.setDirectory(BUILD_DIRECTORY);
+        model.setBuild(build);
+        return new MavenProject(model);
+    }
+
+    void addPlugin(String key, String... configurations) throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId(key.substring(0, key.indexOf(':')));
+        plugin.setArtifactId(key.substring(key.indexOf(':') + 1));
+        for (String configuration : configurations) {
+            PluginExecution execution = new PluginExecution();
+            execution.setId("execution" + plugin.getExecutions().size());
+            if (configuration != null) {
+                execution.setConfiguration(Xpp3DomBuilder.build(new StringReader(configuration)));
+            }
+            plugin.addExecution(execution);
+        }
+        project.getBuild().addPlugin(plugin);
+    }
+
+    List<String> find(List<SpecLocator> locators) {
+        return new SpecsFinder(null, null, null, locators).findSpecFilesInPom(project);
+    }
+
+    @Test
+    void builtInLocators() throws Exception {
+        addPlugin("org.openapitools:openapi-generator-maven-plugin",
+                "<configuration><inputSpec>api/users.yaml</inputSpec><configOptions><sourceFolder>gen.json</sourceFolder></configOptions></configuration>",
+                "<configuration><inputSpec>api/orders.json</inputSpec></configuration>",
+                "<configuration><inputSpec>api/users.yaml</inputSpec></configuration>");
+        addPlugin("io.swagger.codegen.v3:swagger-codegen-maven-plugin", "<configuration><inputSpec>https://example.com/openapi.yaml</inputSpec></configuration>");
+        addPlugin("org.springdoc:springdoc-openapi-maven-plugin", (String) null);
+        addPlugin("io.smallrye:smallrye-open-api-maven-plugin", "<configuration><outputDirectory>docs</outputDirectory><schemaFilename>api</schemaFilename></configuration>");
+        addPlugin("org.apache.maven.plugins:maven-resources-plugin", "<configuration><resource>ignored.yaml</resource></configuration>");
+
+        Assertions.assertEquals(List.of(
+                "api/users.yaml",
+                "api/orders.json",
+                "https://example.com/openapi.yaml",
+                Path.of(BUILD_DIRECTORY, "openapi.json").toString(),
+                Path.of("docs", "api.yaml").toString()
+        ), find(SpecLocators.defaults()));
+    }
+
+    @Test
+    void generatedSpecsAtThePluginDefaults() throws Exception {
+        addPlugin("org.springdoc:springdoc-openapi-maven-plugin", "<configuration/>");
+        addPlugin("io.smallrye:smallrye-open-api-maven-plugin", "<configuration/>");
+
+        // the defaults documented by springdoc-openapi-maven-plugin and smallrye-open-api-maven-plugin
+        Assertions.assertEquals(List.of(
+                Path.of("app", "target", "openapi.json").toString(),
+                Path.of("app", "target", "generated", "openapi.yaml").toString()
+        ), find(SpecLocators.defaults()));
+    }
+
+    @Test
+    void configuredLocators() throws Exception {
+        addPlugin("com.example:api-plugin", "<configuration><api><spec>specs/a.yaml</spec><template>t.mustache</template></api></configuration>");
+        addPlugin("com.example:other-plugin", "<configuration><files><file>b.yml</file><file>readme.md</file></files></configuration>");
+
+        SpecLocatorConfig byParameter = new SpecLocatorConfig();
+        byParameter.setPlugin("com.example:api-plugin");
+        byParameter.setParameters(List.of("spec"));
+        SpecLocatorConfig anySpecFile = new SpecLocatorConfig();
+        anySpecFile.setPlugin("com.example:other-plugin");
+
+        List<SpecLocator> locators = SpecLocators.create(List.of(byParameter, anySpecFile), getClass().getClassLoader());
+        Assertions.assertEquals(List.of("specs/a.yaml", "b.yml"), find(locators));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SpecLocators.create(List.of(new SpecLocatorConfig()), getClass().getClassLoader()));
+    }
+}
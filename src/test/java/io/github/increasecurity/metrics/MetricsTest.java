@@ -0,0 +1,55 @@
+package io.github.increasecurity.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.github.increasecurity.Mappers;
+import io.github.increasecurity.SpecFileWalker;
+import io.github.increasecurity.SpecsFinder;
+import io.github.increasecurity.cache.SpecCache;
+import io.github.increasecurity.openapi.OpenApiProcessor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class MetricsTest {
+
+    @Test
+    void recordsPhasesAndSpecs(@TempDir Path dir) throws IOException {
+        Metrics metrics = new Metrics();
+        SpecsFinder specsFinder = new SpecsFinder(new SpecFileWalker(), new OpenApiProcessor(null, null, null, metrics), metrics);
+        List<String> files = specsFinder.findSpecFiles("src/test/resources/specfiles");
+        specsFinder.readSpecs(files);
+
+        MetricsReport report = metrics.report(2);
+        Set<Metrics.Phase> phases = report.getPhases().stream().map(MetricsReport.PhaseMetrics::getPhase).collect(Collectors.toSet());
+        Assertions.assertTrue(phases.containsAll(Set.of(Metrics.Phase.WALK, Metrics.Phase.READ, Metrics.Phase.PARSE, Metrics.Phase.COMPRESS)));
+        Assertions.assertEquals(files.size(), report.getSpecs().size());
+        Assertions.assertEquals(2, report.getSlowestSpecs().size());
+        Assertions.assertTrue(report.getSlowestSpecs().get(0).getMillis() >= report.getSlowestSpecs().get(1).getMillis());
+
+        Path file = dir.resolve("target/inspectoor-metrics.json");
+        Metrics.write(report, file);
+        JsonNode json = Mappers.JSON_READER.readTree(Files.readAllBytes(file));
+        Assertions.assertEquals(files.size(), json.path("specs").size());
+        Assertions.assertFalse(Metrics.summary(report).isEmpty());
+    }
+
+    @Test
+    void cachedSpecsRecordTheirFileSize(@TempDir Path dir) throws IOException {
+        String file = "src/test/resources/specfiles/petstore.yaml";
+        SpecCache cache = SpecCache.open(dir, "1.0", SpecCache.DEFAULT_MAX_SIZE);
+        new OpenApiProcessor(cache, null, null, new Metrics()).readSpecFile(file);
+
+        Metrics metrics = new Metrics();
+        new OpenApiProcessor(cache, null, null, metrics).readSpecFile(file);
+
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(Files.size(Path.of(file)), metrics.report(1).getSpecs().get(0).getBytes());
+    }
+}
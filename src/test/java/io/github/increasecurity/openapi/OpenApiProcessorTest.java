@@ -1,13 +1,36 @@
 package io.github.increasecurity.openapi;
 
+import io.github.increasecurity.cache.DocumentCache;
+import io.github.increasecurity.content.ContentEncoder;
+import io.github.increasecurity.metrics.Metrics;
+import io.github.increasecurity.metrics.MetricsReport;
 import io.github.increasecurity.model.Spec;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 class OpenApiProcessorTest {
 
     OpenApiProcessor processor = new OpenApiProcessor();
 
+    @AfterEach
+    void closeProcessor() {
+        processor.close();
+    }
+
     @Test
     void readSpecFile() {
         Spec spec = processor.readSpecFile("src/test/resources/specfiles/user_api.yaml");
@@ -15,6 +38,128 @@ class OpenApiProcessorTest {
         Assertions.assertTrue(spec.getName().equals("user_api.yaml"));
     }
 
+    @Test
+    void readSpecFileJsonIsStoredAsYaml() throws IOException {
+        Spec spec = processor.readSpecFile("src/test/resources/specfiles/petstore3.json");
+        Assertions.assertNotNull(spec);
+        Assertions.assertEquals("OpenAPI", spec.getType());
+        Assertions.assertNotNull(spec.getInfo_version());
+        Assertions.assertTrue(decode(spec.getContent().asString()).startsWith("openapi:"));
+    }
+
+    @Test
+    void readSpecFileReadsAndParsesOnce() throws IOException {
+        Metrics metrics = new Metrics();
+        OpenApiProcessor counted = new OpenApiProcessor(null, null, null, metrics, new ContentEncoder(), false);
+        Path yaml = Path.of("src/test/resources/specfiles/petstore.yaml");
+        Path json = Path.of("src/test/resources/specfiles/petstore3.json");
+        Assertions.assertNotNull(counted.readSpecFile(yaml.toString()));
+        Assertions.assertNotNull(counted.readSpecFile(json.toString()));
+        counted.close();
+
+        Map<Metrics.Phase, MetricsReport.PhaseMetrics> phases = metrics.report(0).getPhases().stream()
+                .collect(Collectors.toMap(MetricsReport.PhaseMetrics::getPhase, Function.identity()));
+        // one read and one parse per spec without external refs
+        Assertions.assertEquals(2, phases.get(Metrics.Phase.READ).getCount());
+        Assertions.assertEquals(Files.size(yaml) + Files.size(json), phases.get(Metrics.Phase.READ).getBytes());
+        Assertions.assertEquals(2, phases.get(Metrics.Phase.PARSE).getCount());
+        Assertions.assertFalse(phases.containsKey(Metrics.Phase.RESOLVE));
+    }
+
+    @Test
+    void readSpecFileMetadata(@TempDir Path dir) throws IOException {
+        Path json = Files.writeString(dir.resolve("servers.json"),
+                "{\"openapi\":\"3.0.3\",\"info\":{\"title\":\"t\",\"version\":\"2\"},\"servers\":[{}],\"paths\":{}}");
+        Spec jsonSpec = processor.readSpecFile(json.toString());
+        Assertions.assertEquals("No URL", jsonSpec.getServers().get(0).getUrl());
+        Assertions.assertEquals("No Description", jsonSpec.getServers().get(0).getDescription());
+
+        // a yaml spec without info keeps its type, version and servers
+        Path yaml = Files.writeString(dir.resolve("no-info.yaml"), "openapi: 3.0.3\nservers:\n  - url: https://example.com\npaths: {}\n");
+        Spec yamlSpec = processor.readSpecFile(yaml.toString());
+        Assertions.assertEquals("openapi", yamlSpec.getType());
+        Assertions.assertEquals("3.0.3", yamlSpec.getVersion());
+        Assertions.assertNull(yamlSpec.getInfo_version());
+        Assertions.assertEquals("https://example.com", yamlSpec.getServers().get(0).getUrl());
+        Assertions.assertNull(yamlSpec.getServers().get(0).getDescription());
+    }
+
+    @Test
+    void readSpecFileSkipsNonSpecDocuments(@TempDir Path dir) throws IOException {
+        Path messages = dir.resolve("messages.json");
+        Files.writeString(messages, "{\"greeting\": \"hello\"}");
+        Assertions.assertNull(processor.readSpecFile(messages.toString()));
+    }
+
+    @Test
+    void containsExternalRefs() throws IOException {
+        Assertions.assertTrue(processor.containsExternalRefs(Files.readAllBytes(Path.of("src/test/resources/specfiles/user_api.yaml"))));
+        Assertions.assertFalse(processor.containsExternalRefs(Files.readAllBytes(Path.of("src/test/resources/specfiles/petstore.yaml"))));
+        Assertions.assertTrue(processor.containsExternalRefs("schema: {$ref: 'common/errors.yaml#/Error'}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertTrue(processor.containsExternalRefs("{\"schema\":{\"$ref\":\"common/errors.json#/Error\"}}".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertFalse(processor.containsExternalRefs("{\"schema\":{\"$ref\":\"#/components/schemas/Pet\"}}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void findExternalRefs() throws IOException {
+        Set<String> refs = processor.findExternalRefs(Files.readAllBytes(Path.of("src/test/resources/specfiles/user_api.yaml")));
+        Assertions.assertEquals(Set.of("./components/parameters/userId.yaml", "./components/schemas/User.yaml", "./components/responses/userNotFound.yaml"), refs);
+    }
+
+    @Test
+    void loadResolvedOpenApiAsYamlSharesExternalDocuments() {
+        DocumentCache documents = new DocumentCache(DocumentCache.DEFAULT_MAX_SIZE);
+        OpenApiProcessor shared = new OpenApiProcessor(null, documents);
+        String expected = processor.loadResolvedOpenApiAsYaml("src/test/resources/specfiles/user_api.yaml");
+
+        Assertions.assertEquals(expected, shared.loadResolvedOpenApiAsYaml("src/test/resources/specfiles/user_api.yaml"));
+        int misses = documents.getMisses();
+        Assertions.assertEquals(3, documents.size());
+
+        Assertions.assertEquals(expected, shared.loadResolvedOpenApiAsYaml("src/test/resources/specfiles/user_api.yaml"));
+        Assertions.assertEquals(misses, documents.getMisses());
+        Assertions.assertTrue(documents.getHits() >= 3);
+    }
+
+    @Test
+    void readSpecFileProcessesIdenticalContentOnce(@TempDir Path dir) throws IOException {
+        byte[] bytes = Files.readAllBytes(Path.of("src/test/resources/specfiles/petstore.yaml"));
+        Path first = Files.write(Files.createDirectories(dir.resolve("module-a")).resolve("petstore.yaml"), bytes);
+        Path second = Files.write(Files.createDirectories(dir.resolve("module-b")).resolve("shared.yaml"), bytes);
+
+        Spec a = processor.readSpecFile(first.toString());
+        Spec b = processor.readSpecFile(second.toString());
+        Assertions.assertEquals(1, processor.getDuplicates());
+        Assertions.assertSame(a.getContent(), b.getContent());
+        Assertions.assertEquals(a.getContentHash(), b.getContentHash());
+        Assertions.assertEquals("shared.yaml", b.getName());
+        Assertions.assertEquals(second.toString(), b.getLocation());
+
+        Spec other = processor.readSpecFile("src/test/resources/specfiles/petstore3.json");
+        Assertions.assertNotEquals(a.getContentHash(), other.getContentHash());
+    }
+
+    @Test
+    void readSpecFileWithoutDeduplicationProcessesEveryFile() {
+        try (OpenApiProcessor every = new OpenApiProcessor(null, null, null, new Metrics(), new ContentEncoder(), false)) {
+            Spec a = every.readSpecFile("src/test/resources/specfiles/petstore.yaml");
+            Spec b = every.readSpecFile("src/test/resources/specfiles/petstore.yaml");
+            Assertions.assertEquals(0, every.getDuplicates());
+            Assertions.assertNotSame(a.getContent(), b.getContent());
+        }
+    }
+
+    @Test
+    void loadResolvedOpenApiAsYamlOmitsInternalFields() {
+        String yaml = processor.loadResolvedOpenApiAsYaml("src/test/resources/specfiles/petstore.yaml");
+        Assertions.assertTrue(yaml.startsWith("openapi:"));
+        Assertions.assertTrue(yaml.contains("in: \"query\""));
+        Assertions.assertTrue(yaml.contains("explode: true"));
+        for (String field : SwaggerInternalFieldsModifier.INTERNAL_FIELDS) {
+            Assertions.assertFalse(yaml.contains(field + ":"), field);
+        }
+    }
+
     @Test
     void readSpecFileOnline() {
         Spec spec = processor.readSpecFile("https://petstore3.swagger.io/api/v3/openapi.json");
@@ -36,5 +181,10 @@ class OpenApiProcessorTest {
         Assertions.assertTrue(yaml.startsWith("openapi:"));
     }
 
-
-}
\ No newline at end of file
+    static String decode(String content) throws IOException {
+        byte[] compressed = Base64.getDecoder().decode(content);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
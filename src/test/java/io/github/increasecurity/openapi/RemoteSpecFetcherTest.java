@@ -0,0 +1,105 @@
+package io.github.increasecurity.openapi;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+class RemoteSpecFetcherTest {
+
+    static final String SPEC = "openapi: 3.0.1\ninfo:\n  title: remote\n  version: 1.0.0\npaths: {}\n";
+
+    HttpServer server;
+    List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    OkHttpClient client = new OkHttpClient();
+    volatile int failWith;
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/openapi.yaml", exchange -> {
+            String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatch.add(String.valueOf(etag));
+            if (failWith > 0) {
+                exchange.sendResponseHeaders(failWith, -1);
+            } else if ("\"v1\"".equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = SPEC.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/openapi.yaml";
+    }
+
+    @Test
+    void fetchUsesConditionalRequests() throws IOException {
+        RemoteSpecFetcher fetcher = new RemoteSpecFetcher(client, cacheDir, false);
+        Assertions.assertEquals(SPEC, new String(fetcher.fetch(url()), StandardCharsets.UTF_8));
+        Assertions.assertEquals(SPEC, new String(fetcher.fetch(url()), StandardCharsets.UTF_8));
+        Assertions.assertEquals(List.of("null", "\"v1\""), ifNoneMatch);
+    }
+
+    @Test
+    void fetchServesCacheWhenOfflineOrUnreachable() throws IOException {
+        String url = url();
+        new RemoteSpecFetcher(client, cacheDir, false).fetch(url);
+        server.stop(0);
+
+        Assertions.assertEquals(SPEC, new String(new RemoteSpecFetcher(client, cacheDir, true).fetch(url), StandardCharsets.UTF_8));
+        Assertions.assertEquals(SPEC, new String(new RemoteSpecFetcher(client, cacheDir, false).fetch(url), StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, ifNoneMatch.size());
+    }
+
+    @Test
+    void fetchServesCacheOnServerErrorsOnly() throws IOException {
+        RemoteSpecFetcher fetcher = new RemoteSpecFetcher(client, cacheDir, false);
+        fetcher.fetch(url());
+
+        failWith = 503;
+        Assertions.assertEquals(SPEC, new String(fetcher.fetch(url()), StandardCharsets.UTF_8));
+
+        // the spec was removed, the cached copy is not served
+        failWith = 404;
+        IOException e = Assertions.assertThrows(IOException.class, () -> fetcher.fetch(url()));
+        Assertions.assertTrue(e.getMessage().contains("404"));
+    }
+
+    @Test
+    void fetchOfflineWithoutCacheFails() {
+        RemoteSpecFetcher fetcher = new RemoteSpecFetcher(client, cacheDir, true);
+        Assertions.assertThrows(IOException.class, () -> fetcher.fetch(url()));
+        Assertions.assertTrue(ifNoneMatch.isEmpty());
+    }
+
+    @Test
+    void readSpecFileFetchesRemoteSpecs() {
+        OpenApiProcessor processor = new OpenApiProcessor(null, null, new RemoteSpecFetcher(client, cacheDir, false));
+        Assertions.assertEquals("openapi.yaml", processor.readSpecFile(url()).getName());
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.increasecurity.openapi;
+
+import io.github.increasecurity.cache.DocumentCache;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import io.swagger.v3.parser.ResolverCache;
+import io.swagger.v3.parser.models.RefFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+/**
+ * SharedExternalFiles replaces a private field of swagger-parser. If this fails after a swagger-parser
+ * upgrade, check that the field still exists and is still the map the resolver reads external files from.
+ */
+class SharedExternalFilesTest {
+
+    private static final String SWAGGER_PARSER_VERSION = "2.1.16";
+    private static final String LOCATION = "src/test/resources/specfiles/user_api.yaml";
+
+    private static ResolverCache resolverCache() {
+        return new ResolverCache(new OpenAPIV3Parser().read(LOCATION), new ArrayList<>(), LOCATION);
+    }
+
+    @Test
+    void swaggerParserIsThePinnedVersion() {
+        Assertions.assertEquals(SWAGGER_PARSER_VERSION, ResolverCache.class.getPackage().getImplementationVersion(),
+                "swagger-parser was upgraded, re-check SharedExternalFiles");
+    }
+
+    @Test
+    void externalFilesAreSharedBetweenResolverCaches() {
+        DocumentCache documents = new DocumentCache(DocumentCache.DEFAULT_MAX_SIZE);
+        ResolverCache first = resolverCache();
+        Assertions.assertTrue(SharedExternalFiles.attach(first, LOCATION, documents));
+
+        Assertions.assertNotNull(first.loadRef("./components/schemas/User.yaml", RefFormat.RELATIVE, Schema.class));
+        Assertions.assertEquals(1, documents.size());
+        Assertions.assertEquals(1, documents.getMisses());
+
+        // another spelling of the same file, read by another spec
+        ResolverCache second = resolverCache();
+        Assertions.assertTrue(SharedExternalFiles.attach(second, LOCATION, documents));
+
+        Assertions.assertNotNull(second.loadRef("./components/../components/schemas/User.yaml", RefFormat.RELATIVE, Schema.class));
+        Assertions.assertEquals(1, documents.size());
+        Assertions.assertEquals(1, documents.getHits());
+    }
+}